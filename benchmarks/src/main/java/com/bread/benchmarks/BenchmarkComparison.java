@@ -0,0 +1,69 @@
+package com.bread.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Diffs two JMH JSON result files (-rf json), e.g. the last release against this build:
+ * <pre>java -cp benchmarks.jar com.bread.benchmarks.BenchmarkComparison baseline.json jmh-result.json [threshold%]</pre>
+ * Prints one line per benchmark and parameter set, and exits with 1 when any of them got slower
+ * (or, for throughput modes, lower) by more than the threshold (default 10%) so CI can fail on it.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <current.json> [threshold%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s -> %12.3f %s  (new)%n", entry.getKey(), "", now.score(), now.unit());
+                continue;
+            }
+            // positive = worse, whatever the mode: time per op up or ops per time down
+            double change = (now.score() - before.score()) / before.score() * 100 * (now.higherIsBetter() ? -1 : 1);
+            boolean regressed = change > threshold;
+            regressions += regressed ? 1 : 0;
+            System.out.printf("%-90s %12.3f -> %12.3f %s  %+6.1f%%%s%n", entry.getKey(), before.score(), now.score(), now.unit(),
+                    change, regressed ? "  REGRESSION" : "");
+        }
+        baseline.keySet().stream().filter(key -> !current.containsKey(key)).sorted()
+                .forEach(key -> System.out.printf("%-90s (removed)%n", key));
+
+        System.out.printf("%d regression(s) beyond %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText().replace("com.bread.benchmarks.", ""));
+            run.path("params").fields().forEachRemaining(param -> key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            JsonNode metric = run.path("primaryMetric");
+            String mode = run.path("mode").asText();
+            results.put(key.toString(), new Result(metric.path("score").asDouble(), metric.path("scoreUnit").asText(),
+                    mode.equals("thrpt")));
+        }
+        return results;
+    }
+
+    private record Result(double score, String unit, boolean higherIsBetter) {
+    }
+}
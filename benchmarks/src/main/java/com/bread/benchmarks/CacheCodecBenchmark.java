@@ -0,0 +1,75 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.cache.ProductCacheCodec;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.model.Product;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode time of the Redis cache values with the previous JSON serializer vs. the binary
+ * codec, with and without LZ4. Bytes per entry do not change between iterations, so they are
+ * printed once per trial ("bytes codec=... shape=...") next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({ "json", "binary", "binary-lz4" })
+    public String codec;
+
+    // product_by_id entry, products_page entry, products_list entry
+    @Param({ "product", "page", "list" })
+    public String shape;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        serializer = switch (codec) {
+            case "json" -> json;
+            case "binary" -> new ProductCacheCodec(json, true, -1);
+            case "binary-lz4" -> new ProductCacheCodec(json, true, 1024);
+            default -> throw new IllegalArgumentException("Unknown codec " + codec);
+        };
+        List<Product> catalog = SyntheticCatalog.generate(1000, 42);
+        value = switch (shape) {
+            case "product" -> catalog.get(0);
+            case "page" -> new PagedResponseDTO<>(new ArrayList<>(catalog.subList(0, 20)), 0, 20, 1000L, 50, false);
+            case "list" -> new ArrayList<>(catalog);
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+        encoded = serializer.serialize(value);
+        System.out.printf("%nbytes codec=%s shape=%s: %d%n", codec, shape, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        blackhole.consume(serializer.deserialize(encoded));
+    }
+
+    // a cache miss followed by a hit elsewhere: what one value costs end to end
+    @Benchmark
+    public void roundTrip(Blackhole blackhole) {
+        blackhole.consume(serializer.deserialize(serializer.serialize(value)));
+    }
+}
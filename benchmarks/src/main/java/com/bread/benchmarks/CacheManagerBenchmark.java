@@ -0,0 +1,69 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.cache.LocalCacheInvalidationBus;
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.model.Product;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * product_by_id get/put through the CacheManager the service is configured with: the two-tier
+ * manager (Caffeine L1 over the Redis stand-in) vs. the Redis tier alone. {@code hit} reads keys
+ * already cached, {@code missAndLoad} evicts one and reloads it through get(key, loader) as
+ * {@code @Cacheable(sync = true)} does, {@code put} writes as {@code @CachePut}/stock changes do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheManagerBenchmark {
+
+    @Param({ "two-tier", "remote" })
+    public String manager;
+
+    private Cache cache;
+    private List<Product> products;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CacheManager remote = new CodecMapCacheManager();
+        CacheManager cacheManager = manager.equals("two-tier")
+                ? new TwoTierCacheManager(remote, new LocalCacheInvalidationBus(), 10_000, Duration.ofMinutes(1))
+                : remote;
+        cache = cacheManager.getCache("product_by_id");
+        products = SyntheticCatalog.generate(1000, 42);
+        products.forEach(product -> cache.put(product.getId(), product));
+    }
+
+    @Benchmark
+    public Object hit() {
+        return cache.get(nextProduct().getId()).get();
+    }
+
+    @Benchmark
+    public Product missAndLoad() {
+        Product product = nextProduct();
+        cache.evict(product.getId());
+        return cache.get(product.getId(), () -> product);
+    }
+
+    @Benchmark
+    public void put() {
+        Product product = nextProduct();
+        cache.put(product.getId(), product);
+    }
+
+    private Product nextProduct() {
+        next = (next + 1) % products.size();
+        return products.get(next);
+    }
+}
@@ -0,0 +1,119 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.cache.LocalCatalogVersion;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+import com.bread.productservice.service.CountMode;
+import com.bread.productservice.service.ProductCountService;
+import com.bread.productservice.service.ProductProjection;
+import com.bread.productservice.service.ProductService;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getFilteredProducts answered by the bitmap engine vs. the Mongo find + count path.
+ * The mongo variant needs a server at -Dbench.mongo.uri (default mongodb://localhost:27017)
+ * and seeds a throwaway "benchmarks" database; run with -p path=engine without one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogEngineBenchmark {
+
+    @Param({ "10000" })
+    public int catalogSize;
+
+    @Param({ "engine", "mongo" })
+    public String path;
+
+    private ProductService productService;
+    private MongoClient mongoClient;
+    private List<ProductFilterInput> filters;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Product> catalog = SyntheticCatalog.generate(catalogSize, 42);
+        CatalogEngine engine = new CatalogEngine(null, true);
+        MongoTemplate mongoTemplate = null;
+
+        if (path.equals("engine")) {
+            engine.load(catalog);
+        } else {
+            mongoClient = MongoClients.create(System.getProperty("bench.mongo.uri", "mongodb://localhost:27017"));
+            mongoTemplate = new MongoTemplate(mongoClient, "benchmarks");
+            seed(mongoTemplate, catalog);
+        }
+
+        ProductCountService countService = new ProductCountService(mongoTemplate, CountMode.EXACT, 1000);
+        productService = new ProductService(null, mongoTemplate, new LocalCatalogVersion(), countService, null, engine, event -> { }, new NoOpCacheManager(),
+                new ProductOutbox(null, null, false, 1));
+        filters = List.of(
+                filter(List.of(ProductType.VEGAN), null, null, null, null),
+                filter(List.of(ProductType.GLUTEN, ProductType.KETO), List.of(Flavor.CHOCOLATE, Flavor.NUEZ), null, null, null),
+                filter(null, null, true, 20.0, 80.0),
+                filter(List.of(ProductType.GLUTEN_FREE), List.of(Flavor.FRESA), false, 10.0, 120.0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+    }
+
+    @Benchmark
+    public PagedResponseDTO<Product> firstPage() {
+        return productService.getFilteredProducts(nextFilter(), 0, 20, "ASC", true, ProductProjection.ALL);
+    }
+
+    @Benchmark
+    public PagedResponseDTO<Product> deepPage() {
+        return productService.getFilteredProducts(nextFilter(), 25, 20, "DESC", true, ProductProjection.ALL);
+    }
+
+    private ProductFilterInput nextFilter() {
+        next = (next + 1) % filters.size();
+        return filters.get(next);
+    }
+
+    private static void seed(MongoTemplate mongoTemplate, List<Product> catalog) {
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.createCollection(Product.class);
+        IndexOperations indexOps = mongoTemplate.indexOps(Product.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Product.class)
+                .forEach(indexOps::ensureIndex);
+        for (int from = 0; from < catalog.size(); from += 1000) {
+            mongoTemplate.insertAll(catalog.subList(from, Math.min(catalog.size(), from + 1000)));
+        }
+    }
+
+    private static ProductFilterInput filter(List<ProductType> types, List<Flavor> flavors, Boolean onSale, Double priceFrom, Double priceTo) {
+        ProductFilterInput filter = new ProductFilterInput();
+        filter.setTypes(types);
+        filter.setFlavors(flavors);
+        filter.setOnSale(onSale);
+        filter.setPriceFrom(priceFrom);
+        filter.setPriceTo(priceTo);
+        return filter;
+    }
+}
@@ -0,0 +1,86 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.cache.ProductCacheCodec;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process Redis stand-in: values are stored as bytes through the same {@link ProductCacheCodec}
+ * RedisConfig installs, so every remote hit and put pays the real encode/decode cost, minus the network.
+ */
+final class CodecMapCacheManager extends ConcurrentMapCacheManager {
+
+    private final ProductCacheCodec codec = new ProductCacheCodec(new GenericJackson2JsonRedisSerializer(), true, 1024);
+
+    @Override
+    protected Cache createConcurrentMapCache(String name) {
+        return new CodecMapCache(name, codec);
+    }
+
+    private static final class CodecMapCache extends AbstractValueAdaptingCache {
+
+        private final String name;
+        private final ProductCacheCodec codec;
+        private final ConcurrentMap<Object, byte[]> store = new ConcurrentHashMap<>();
+
+        CodecMapCache(String name, ProductCacheCodec codec) {
+            super(true);
+            this.name = name;
+            this.codec = codec;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return store;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            byte[] bytes = store.get(key);
+            return bytes != null ? codec.deserialize(bytes) : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            ValueWrapper cached = get(key);
+            if (cached != null) {
+                return (T) cached.get();
+            }
+            try {
+                T value = valueLoader.call();
+                put(key, value);
+                return value;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            store.put(key, codec.serialize(toStoreValue(value)));
+        }
+
+        @Override
+        public void evict(Object key) {
+            store.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            store.clear();
+        }
+    }
+}
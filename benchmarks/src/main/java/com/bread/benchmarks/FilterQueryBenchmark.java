@@ -0,0 +1,90 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.cache.LocalCatalogVersion;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+import com.bread.productservice.service.CountMode;
+import com.bread.productservice.service.ProductCountService;
+import com.bread.productservice.service.ProductProjection;
+import com.bread.productservice.service.ProductQueries;
+import com.bread.productservice.service.ProductService;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Mongo path of getFilteredProducts without the server: filter -> Query construction, the
+ * client-side BSON mapping of query/sort/projection, and PagedResponseDTO assembly for a page.
+ * {@code build} isolates ProductQueries.filter; {@code firstPage}/{@code hasNextPage} run the
+ * whole service method over {@link InMemoryMongoTemplate} with exact counts and HAS_NEXT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterQueryBenchmark {
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private ProductService productService;
+    private List<ProductFilterInput> filters;
+    private ProductProjection projection;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryMongoTemplate mongoTemplate = new InMemoryMongoTemplate(SyntheticCatalog.generate(1000, 42));
+        productService = new ProductService(null, mongoTemplate, new LocalCatalogVersion(),
+                new ProductCountService(mongoTemplate, CountMode.EXACT, 1000), null, new CatalogEngine(null, false),
+                event -> { }, new NoOpCacheManager(), new ProductOutbox(null, null, false, 1));
+        filters = List.of(
+                new ProductFilterInput(),
+                filter(List.of(ProductType.VEGAN), null, null, null, null),
+                filter(List.of(ProductType.GLUTEN, ProductType.KETO), List.of(Flavor.CHOCOLATE, Flavor.NUEZ), null, null, null),
+                filter(List.of(ProductType.GLUTEN_FREE), List.of(Flavor.FRESA), false, 10.0, 120.0));
+        // a typical GraphQL list selection
+        projection = ProductProjection.of(List.of("id", "name", "price", "imgUrl", "onSale", "discountPercentage"));
+    }
+
+    @Benchmark
+    public Query build() {
+        return ProductQueries.filter(nextFilter());
+    }
+
+    @Benchmark
+    public PagedResponseDTO<Product> firstPage() {
+        return productService.getFilteredProducts(nextFilter(), 0, pageSize, "ASC", true, projection);
+    }
+
+    @Benchmark
+    public PagedResponseDTO<Product> hasNextPage() {
+        return productService.getFilteredProducts(nextFilter(), 3, pageSize, "DESC", false, ProductProjection.ALL);
+    }
+
+    private ProductFilterInput nextFilter() {
+        next = (next + 1) % filters.size();
+        return filters.get(next);
+    }
+
+    private static ProductFilterInput filter(List<ProductType> types, List<Flavor> flavors, Boolean onSale, Double priceFrom, Double priceTo) {
+        ProductFilterInput filter = new ProductFilterInput();
+        filter.setTypes(types);
+        filter.setFlavors(flavors);
+        filter.setOnSale(onSale);
+        filter.setPriceFrom(priceFrom);
+        filter.setPriceTo(priceTo);
+        return filter;
+    }
+}
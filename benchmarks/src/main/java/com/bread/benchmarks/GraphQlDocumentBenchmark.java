@@ -0,0 +1,121 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.config.GraphQlDocumentCache;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.ParseAndValidate;
+import graphql.ParseAndValidateResult;
+import graphql.execution.preparsed.NoOpPreparsedDocumentProvider;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The frontend's queries executed against the product schema with in-memory data fetchers, so
+ * what is measured is GraphQL's own work: with {@code documents=none} every execution parses and
+ * validates the query text, with {@code cached} it comes from {@link GraphQlDocumentCache}, and
+ * with {@code persisted} only the hash is sent. {@code document} isolates that step; the
+ * difference in {@code execute} is what the cache takes off every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQlDocumentBenchmark {
+
+    private static final String FILTERED = """
+            query Filtered($filter: ProductFilterInput, $page: Int, $size: Int) {
+              getFilteredProducts(filter: $filter, page: $page, size: $size) {
+                content { id name description price quantity imgUrl type flavor onSale discountPercentage }
+                pageNumber pageSize totalElements totalPages last
+              }
+            }""";
+    private static final String FLAVORS = "query Flavors { getAvailableFlavors }";
+
+    @Param({ "none", "cached", "persisted" })
+    public String documents;
+
+    @Param({ "filtered", "flavors" })
+    public String query;
+
+    private GraphQLSchema schema;
+    private GraphQL graphQl;
+    private GraphQlDocumentCache documentCache;
+    private String text;
+    private Map<String, Object> variables;
+    private Map<String, Object> persistedQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Product> page = SyntheticCatalog.generate(20, 42);
+        List<String> flavors = Arrays.stream(Flavor.values()).map(Flavor::name).toList();
+        schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(schemaText()), RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("getFilteredProducts", env -> new PagedResponseDTO<>(page, 0, 20, 1000L, 50, false))
+                        .dataFetcher("getAvailableFlavors", env -> flavors))
+                .build());
+        documentCache = new GraphQlDocumentCache(1000);
+        graphQl = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(documents.equals("none") ? NoOpPreparsedDocumentProvider.INSTANCE : documentCache)
+                .build();
+        text = query.equals("filtered") ? FILTERED : FLAVORS;
+        variables = query.equals("filtered") ? Map.of("filter", Map.of("types", List.of("VEGAN")), "page", 0, "size", 20) : Map.of();
+        persistedQuery = Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", GraphQlDocumentCache.hash(text)));
+        // registered as the first request of a client would
+        if (!graphQl.execute(ExecutionInput.newExecutionInput(text).variables(variables).extensions(persistedQuery)).getErrors().isEmpty()) {
+            throw new IllegalStateException("Benchmark query does not validate against the schema");
+        }
+    }
+
+    @Benchmark
+    public ExecutionResult execute() {
+        return graphQl.execute(request());
+    }
+
+    @Benchmark
+    public Object document() {
+        ExecutionInput input = request();
+        if (documents.equals("none")) {
+            return parseAndValidate(input);
+        }
+        return documentCache.getDocumentAsync(input, this::parseAndValidate).join();
+    }
+
+    private PreparsedDocumentEntry parseAndValidate(ExecutionInput input) {
+        ParseAndValidateResult result = ParseAndValidate.parseAndValidate(schema, input);
+        return result.isFailure() ? new PreparsedDocumentEntry(result.getErrors()) : new PreparsedDocumentEntry(result.getDocument());
+    }
+
+    // cached: the text, hashed by the cache; persisted: the hash alone
+    private ExecutionInput request() {
+        if (documents.equals("persisted")) {
+            return ExecutionInput.newExecutionInput(GraphQlDocumentCache.PERSISTED_QUERY_MARKER).variables(variables).extensions(persistedQuery).build();
+        }
+        return ExecutionInput.newExecutionInput(text).variables(variables).build();
+    }
+
+    private static String schemaText() throws IOException {
+        try (InputStream schema = GraphQlDocumentBenchmark.class.getResourceAsStream("/graphql/schema.graphqls")) {
+            return new String(schema.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.model.Product;
+
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MongoTemplate stand-in that does the client-side half of a find (mapping the query, sort and
+ * projection to BSON against the Product entity, as the driver call would) and answers from a
+ * list instead of a server, so service code above it can be measured without network noise.
+ */
+final class InMemoryMongoTemplate extends MongoTemplate {
+
+    private final List<Product> catalog;
+    private final QueryMapper queryMapper;
+    private final MongoPersistentEntity<?> productEntity;
+
+    InMemoryMongoTemplate(List<Product> catalog) {
+        super(noDatabase());
+        this.catalog = catalog;
+        this.queryMapper = new QueryMapper(getConverter());
+        this.productEntity = getConverter().getMappingContext().getRequiredPersistentEntity(Product.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        map(query);
+        int limit = query.getLimit() > 0 ? query.getLimit() : catalog.size();
+        int from = (int) Math.min(query.getSkip(), catalog.size());
+        return (List<T>) new ArrayList<>(catalog.subList(from, Math.min(catalog.size(), from + limit)));
+    }
+
+    @Override
+    public long count(Query query, Class<?> entityClass) {
+        map(query);
+        return catalog.size();
+    }
+
+    private void map(Query query) {
+        queryMapper.getMappedObject(query.getQueryObject(), productEntity);
+        queryMapper.getMappedSort(query.getSortObject(), productEntity);
+        queryMapper.getMappedFields(query.getFieldsObject(), productEntity);
+    }
+
+    // the template only asks its factory for the exception translator until a real operation runs
+    private static MongoDatabaseFactory noDatabase() {
+        MongoExceptionTranslator translator = new MongoExceptionTranslator();
+        return (MongoDatabaseFactory) Proxy.newProxyInstance(MongoDatabaseFactory.class.getClassLoader(),
+                new Class<?>[] { MongoDatabaseFactory.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getExceptionTranslator")) {
+                        return translator;
+                    }
+                    throw new UnsupportedOperationException("No database behind the benchmark template: " + method.getName());
+                });
+    }
+}
@@ -0,0 +1,47 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic bread catalog spread over every {@link ProductType} and {@link Flavor}.
+ */
+public final class SyntheticCatalog {
+
+    private static final String[] NAMES = { "Concha", "Croissant", "Bolillo", "Cuernito", "Dona", "Rol", "Pan de Muerto", "Oreja", "Telera", "Mantecada" };
+
+    private SyntheticCatalog() {
+    }
+
+    public static List<Product> generate(int size, long seed) {
+        Random random = new Random(seed);
+        ProductType[] types = ProductType.values();
+        Flavor[] flavors = Flavor.values();
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Flavor flavor = flavors[random.nextInt(flavors.length)];
+            String name = NAMES[random.nextInt(NAMES.length)] + " de " + flavor.name().toLowerCase() + " " + i;
+            double price = Math.round((5 + random.nextDouble() * 145) * 100) / 100.0;
+            boolean onSale = random.nextInt(5) == 0;
+            products.add(new Product(
+                    new ObjectId().toHexString(),
+                    name,
+                    "Pan artesanal horneado cada mañana, receta " + i,
+                    price,
+                    1 + random.nextInt(200),
+                    "https://img.bread.local/" + i + ".jpg",
+                    types[random.nextInt(types.length)].name(),
+                    onSale,
+                    flavor.name(),
+                    onSale ? (double) (5 * (1 + random.nextInt(6))) : 0.0));
+        }
+        return products;
+    }
+}
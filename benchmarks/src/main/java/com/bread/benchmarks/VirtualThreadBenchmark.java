@@ -0,0 +1,86 @@
+package com.bread.benchmarks;
+
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.repository.ProductRepository;
+import com.bread.productservice.service.ProductService;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * A burst of concurrent getProductById calls whose repository blocks for {@code ioMillis}, as a
+ * Mongo round trip would, served by Tomcat's default 200 platform threads or by one virtual thread
+ * per request. The virtual variant needs Java 21 (run the jar with a 21 JVM); on 17 use
+ * {@code -p executor=platform}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({ "platform", "virtual" })
+    public String executor;
+
+    @Param({ "2000" })
+    public int concurrentRequests;
+
+    @Param({ "5" })
+    public int ioMillis;
+
+    private ExecutorService executorService;
+    private ProductService productService;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        executorService = executor.equals("virtual")
+                ? (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null)
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        List<Product> catalog = SyntheticCatalog.generate(1000, 42);
+        productService = new ProductService(blockingRepository(catalog), null, null, null, null, null, null, null,
+                new ProductOutbox(null, null, false, 1));
+        ids = catalog.stream().map(Product::getId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Callable<Optional<Product>>> requests = new ArrayList<>(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            String id = ids.get(i % ids.size());
+            requests.add(() -> productService.getProductById(id));
+        }
+        int found = 0;
+        for (Future<Optional<Product>> response : executorService.invokeAll(requests)) {
+            found += response.get().isPresent() ? 1 : 0;
+        }
+        return found;
+    }
+
+    // findById sleeps like a Mongo round trip; nothing else is called on this path
+    private ProductRepository blockingRepository(List<Product> catalog) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(), new Class<?>[] { ProductRepository.class },
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Thread.sleep(ioMillis);
+                    return catalog.stream().filter(p -> p.getId().equals(args[0])).findFirst();
+                });
+    }
+}
@@ -0,0 +1,81 @@
+package com.bread.loadtest;
+
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic bread catalog, the same for the same size and seed: every {@link ProductType} and
+ * {@link Flavor} combination in turn, random prices, stock and sales. Written through the NDJSON
+ * import, so the service's own write path fills its indexes and read models; the ids are fixed,
+ * so seeding an already seeded target updates the products instead of adding more.
+ */
+final class CatalogSeeder {
+
+    private static final String[] BREADS = { "Concha", "Croissant", "Dona", "Rol", "Bolillo", "Oreja", "Cuerno", "Panque", "Polvoron", "Mantecada" };
+    private static final int PRODUCTS_PER_REQUEST = 5_000;
+
+    private final HttpClient client;
+    private final URI importUri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    CatalogSeeder(HttpClient client, URI baseUri) {
+        this.client = client;
+        this.importUri = baseUri.resolve("/api/products/import");
+    }
+
+    /** Imports {@code count} products and returns their ids. */
+    List<String> seed(int count, long seed) throws IOException, InterruptedException {
+        Random random = new Random(seed);
+        List<String> ids = new ArrayList<>(count);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            Product product = product(i, random);
+            ids.add(product.getId());
+            ndjson.append(objectMapper.writeValueAsString(product)).append('\n');
+            if ((i + 1) % PRODUCTS_PER_REQUEST == 0 || i == count - 1) {
+                send(ndjson.toString());
+                ndjson.setLength(0);
+            }
+        }
+        return ids;
+    }
+
+    private static Product product(int index, Random random) {
+        ProductType type = ProductType.values()[index % ProductType.values().length];
+        Flavor flavor = Flavor.values()[(index / ProductType.values().length) % Flavor.values().length];
+        String bread = BREADS[random.nextInt(BREADS.length)];
+        String name = bread + " de " + flavor.name().toLowerCase(Locale.ROOT) + " " + index;
+        double price = Math.round((5 + random.nextDouble() * 95) * 100) / 100.0;
+        boolean onSale = random.nextInt(5) == 0;
+        // plenty of stock: reservations are released again by the mix, so it only drifts
+        return new Product(String.format("%024x", index + 1L), name, bread + " " + type.name().toLowerCase(Locale.ROOT) + " recien horneado",
+                price, 10_000 + random.nextInt(10_000), "https://img.bread.local/" + index + ".jpg",
+                type.name(), onSale, flavor.name(), onSale ? (double) (5 * (1 + random.nextInt(6))) : null);
+    }
+
+    private void send(String ndjson) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(importUri)
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || !response.body().contains("\"failed\":0")) {
+            throw new IllegalStateException("Catalog import failed (" + response.statusCode() + "): " + response.body());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bread.loadtest;
+
+import com.bread.productservice.ProductServiceApplication;
+
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+
+/**
+ * The product service started in this JVM against a throwaway mongod (downloaded once by
+ * flapdoodle) and redis-server (bundled by embedded-redis), both on free ports. Nothing else is
+ * needed: the outbox and the change stream stay disabled, so Kafka and a replica set are not.
+ * Client and server share the machine, so compare runs made on the same one.
+ */
+final class EmbeddedProductService implements AutoCloseable {
+
+    private final TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private final RedisServer redis;
+    private final ConfigurableApplicationContext context;
+    private final URI baseUri;
+
+    private EmbeddedProductService(TransitionWalker.ReachedState<RunningMongodProcess> mongod, RedisServer redis,
+                                   ConfigurableApplicationContext context) {
+        this.mongod = mongod;
+        this.redis = redis;
+        this.context = context;
+        this.baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    /**
+     * @param profiles Spring profiles of the service, e.g. {@code reactive}; empty for the default stack
+     */
+    static EmbeddedProductService start(String profiles) throws IOException {
+        TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V7_0);
+        RedisServer redis = null;
+        try {
+            int redisPort = freePort();
+            redis = new RedisServer(redisPort);
+            redis.start();
+            var address = mongod.current().getServerAddress();
+            ConfigurableApplicationContext context = SpringApplication.run(ProductServiceApplication.class,
+                    "--server.port=0",
+                    "--spring.profiles.active=" + profiles,
+                    "--spring.data.mongodb.host=" + address.getHost(),
+                    "--spring.data.mongodb.port=" + address.getPort(),
+                    "--spring.data.mongodb.database=loadtest",
+                    "--spring.data.redis.host=localhost",
+                    "--spring.data.redis.port=" + redisPort,
+                    "--logging.level.com.bread.productservice=WARN");
+            return new EmbeddedProductService(mongod, redis, context);
+        } catch (IOException | RuntimeException e) {
+            if (redis != null) {
+                redis.stop();
+            }
+            mongod.close();
+            throw e;
+        }
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            context.close();
+        } finally {
+            try {
+                redis.stop();
+            } finally {
+                mongod.close();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.bread.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load against {@code /graphql} and {@code /api/products}: every worker sends the next
+ * request as soon as the previous one answers, with a weighted mix of filtered paging, by-id
+ * lookups (GraphQL and REST), name search, price patches and stock reservations. Latencies go into
+ * HdrHistograms; one tab-separated line per operation is printed with throughput and percentiles,
+ * so two runs can be diffed, and {@code -Dhistograms=<dir>} also writes each full distribution
+ * ({@code <label>-<operation>.hgrm}, milliseconds). Being closed-loop, a stall delays the requests
+ * behind it instead of showing up in their latency: read the max and p99.9 with that in mind.
+ *
+ * <p>Against a running service (seeded with {@code -Dproducts=<n>}, or sampled from the existing catalog):
+ * <pre>
+ * java -Dtarget=http://localhost:8080 -Dconcurrency=256 -Dduration=60 -Dlabel=mvc -jar loadtest/target/loadtest.jar
+ * java -Dtarget=http://localhost:8080 -Dconcurrency=256 -Dduration=60 -Dlabel=reactive -jar loadtest/target/loadtest.jar
+ * </pre>
+ * Self-contained, starting the service in this JVM on embedded Mongo and Redis and seeding 10000 products:
+ * <pre>
+ * java -Dembedded=true -Dprofiles=reactive -Dproducts=10000 -Dseed=42 -Dlabel=reactive -jar loadtest/target/loadtest.jar
+ * </pre>
+ * {@code -Dmix=filtered:35,by_id:20,search:10,rest_by_id:10,patch:5,reserve:10,release:10} sets the
+ * weights (the default); operations left out are not sent.
+ */
+public class LoadTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[] TYPES = { "GLUTEN", "GLUTEN_FREE", "VEGAN", "KETO" };
+    private static final String[] WORDS = { "con", "pan", "cro", "dona", "rol" };
+    private static final String DEFAULT_MIX = "filtered:35,by_id:20,search:10,rest_by_id:10,patch:5,reserve:10,release:10";
+
+    enum Operation { FILTERED, BY_ID, SEARCH, REST_BY_ID, PATCH, RESERVE, RELEASE }
+
+    public static void main(String[] args) throws Exception {
+        boolean embedded = Boolean.getBoolean("embedded");
+        int products = Integer.getInteger("products", embedded ? 10_000 : 0);
+        long seed = Long.getLong("seed", 42);
+        int concurrency = Integer.getInteger("concurrency", 64);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("duration", 30));
+        String label = System.getProperty("label", "run");
+        int[] weights = weights(System.getProperty("mix", DEFAULT_MIX));
+        String histograms = System.getProperty("histograms");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        EmbeddedProductService service = embedded ? EmbeddedProductService.start(System.getProperty("profiles", "")) : null;
+        try {
+            URI base = service != null ? service.baseUri() : URI.create(System.getProperty("target", "http://localhost:8080"));
+            List<String> ids = products > 0 ? new CatalogSeeder(client, base).seed(products, seed) : sampleIds(client, base);
+            if (ids.isEmpty()) {
+                throw new IllegalStateException("No products returned by " + base + "; seed the catalog first (-Dproducts=<n>)");
+            }
+
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            long stopAt = measureFrom + duration.toNanos();
+            List<Worker> workers = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(client, base, ids, weights, measureFrom, stopAt, done);
+                workers.add(worker);
+                Thread thread = new Thread(worker, "load-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+            report(label, workers, weights, duration.toNanos() / 1e9, histograms);
+        } finally {
+            if (service != null) {
+                service.close();
+            }
+        }
+    }
+
+    private static void report(String label, List<Worker> workers, int[] weights, double seconds, String histograms) throws IOException {
+        System.out.println("label\toperation\trequests\terrors\tthroughput_rps\tp50_ms\tp90_ms\tp99_ms\tp999_ms\tmax_ms");
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            if (weights[operation.ordinal()] == 0) {
+                continue;
+            }
+            Histogram merged = new Histogram(3);
+            long errors = 0;
+            for (Worker worker : workers) {
+                merged.add(worker.latencies.get(operation));
+                errors += worker.errors.get(operation)[0];
+            }
+            all.add(merged);
+            allErrors += errors;
+            print(label, operation.name().toLowerCase(Locale.ROOT), merged, errors, seconds, histograms);
+        }
+        print(label, "all", all, allErrors, seconds, histograms);
+    }
+
+    private static void print(String label, String operation, Histogram latencies, long errors, double seconds,
+                              String histograms) throws IOException {
+        System.out.printf(Locale.ROOT, "%s\t%s\t%d\t%d\t%.1f\t%.2f\t%.2f\t%.2f\t%.2f\t%.2f%n",
+                label, operation, latencies.getTotalCount(), errors, latencies.getTotalCount() / seconds,
+                millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                latencies.getMaxValue() / 1e6);
+        if (histograms != null && latencies.getTotalCount() > 0) {
+            Path file = Files.createDirectories(Path.of(histograms)).resolve(label + "-" + operation + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                latencies.outputPercentileDistribution(out, 1e6);
+            }
+        }
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    // "filtered:35,by_id:20": weight per operation, 0 for those not listed
+    static int[] weights(String mix) {
+        int[] weights = new int[Operation.values().length];
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("mix entries are operation:weight, got " + entry);
+            }
+            weights[Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = Integer.parseInt(parts[1].trim());
+        }
+        if (Arrays.stream(weights).sum() <= 0) {
+            throw new IllegalArgumentException("mix has no operation with a positive weight: " + mix);
+        }
+        return weights;
+    }
+
+    private static List<String> sampleIds(HttpClient client, URI base) throws Exception {
+        String body = client.send(graphql(base, "{ getAllProducts(page: 0, size: 200) { content { id } } }"),
+                HttpResponse.BodyHandlers.ofString()).body();
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids;
+    }
+
+    static HttpRequest graphql(URI base, String query) {
+        String json = "{\"query\":\"" + query.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+        return HttpRequest.newBuilder(base.resolve("/graphql"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    static HttpRequest request(Operation operation, URI base, List<String> ids, ThreadLocalRandom random) {
+        String id = ids.get(random.nextInt(ids.size()));
+        return switch (operation) {
+            case FILTERED -> graphql(base, "{ getFilteredProducts(filter: { types: [\"" + TYPES[random.nextInt(TYPES.length)] + "\"] }, page: "
+                    + random.nextInt(5) + ", size: 20) { content { id name price } totalElements last } }");
+            case BY_ID -> graphql(base, "{ getProductById(id: \"" + id + "\") { id name price quantity } }");
+            case SEARCH -> graphql(base, "{ searchProductsByName(name: \"" + WORDS[random.nextInt(WORDS.length)] + "\", size: 10) { id name } }");
+            case REST_BY_ID -> HttpRequest.newBuilder(base.resolve("/api/products/" + id))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            case PATCH -> graphql(base, String.format(Locale.ROOT, "mutation { patchProduct(id: \"%s\", input: { price: %.2f }) { id price version } }",
+                    id, 5 + random.nextInt(9500) / 100.0));
+            case RESERVE -> graphql(base, "mutation { reserveStock(id: \"" + id + "\", quantity: 1) { id quantity } }");
+            case RELEASE -> graphql(base, "mutation { releaseStock(id: \"" + id + "\", quantity: 1) { id quantity } }");
+        };
+    }
+
+    static Operation pick(int[] weights, ThreadLocalRandom random) {
+        int roll = random.nextInt(Arrays.stream(weights).sum());
+        for (Operation operation : Operation.values()) {
+            roll -= weights[operation.ordinal()];
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final URI base;
+        private final List<String> ids;
+        private final int[] weights;
+        private final long measureFrom;
+        private final long stopAt;
+        private final CountDownLatch done;
+        // one histogram per operation and worker, merged at the end: no sharing while measuring
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, long[]> errors = new EnumMap<>(Operation.class);
+
+        Worker(HttpClient client, URI base, List<String> ids, int[] weights, long measureFrom, long stopAt, CountDownLatch done) {
+            this.client = client;
+            this.base = base;
+            this.ids = ids;
+            this.weights = weights;
+            this.measureFrom = measureFrom;
+            this.stopAt = stopAt;
+            this.done = done;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new Histogram(3));
+                errors.put(operation, new long[1]);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                while (System.nanoTime() < stopAt) {
+                    Operation operation = pick(weights, random);
+                    HttpRequest request = request(operation, base, ids, random);
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        ok = response.statusCode() == 200 && !response.body().contains("\"errors\"");
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long end = System.nanoTime();
+                    if (start >= measureFrom && end <= stopAt) {
+                        if (ok) {
+                            latencies.get(operation).recordValue(end - start);
+                        } else {
+                            errors.get(operation)[0]++;
+                        }
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bread.productservice.cache;
+
+import java.util.List;
+
+/**
+ * Message broadcast between nodes when cache entries change, so every node can drop
+ * its in-process (L1) copies. {@code null} keys mean the whole cache was cleared.
+ */
+public record CacheInvalidation(String origin, String cacheName, List<String> keys) {
+
+    public static CacheInvalidation evict(String origin, String cacheName, String key) {
+        return new CacheInvalidation(origin, cacheName, List.of(key));
+    }
+
+    public static CacheInvalidation clear(String origin, String cacheName) {
+        return new CacheInvalidation(origin, cacheName, null);
+    }
+
+    public boolean isClear() {
+        return keys == null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bread.productservice.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport used by {@link TwoTierCacheManager} to tell the other nodes which L1 entries are stale.
+ */
+public interface CacheInvalidationBus {
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
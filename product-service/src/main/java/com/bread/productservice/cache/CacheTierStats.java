@@ -0,0 +1,139 @@
+package com.bread.productservice.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit/miss counters for one {@link TwoTierCache}, split by tier, plus how its loads went:
+ * loads that reached the loader and the time they took, misses that joined another load on this
+ * node, waits on a lease held by another node and early refreshes. Evictions count keys dropped
+ * by writes on this node; capacity and TTL evictions of L1 are Caffeine's own statistics.
+ */
+public class CacheTierStats {
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder leaseWaits = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    void l1Hit() {
+        l1Hits.increment();
+    }
+
+    void l1Miss() {
+        l1Misses.increment();
+    }
+
+    void l2Hit() {
+        l2Hits.increment();
+    }
+
+    void l2Miss() {
+        l2Misses.increment();
+    }
+
+    void remoteInvalidation() {
+        remoteInvalidations.increment();
+    }
+
+    void evict(int keys) {
+        evictions.add(keys);
+    }
+
+    void clear() {
+        clears.increment();
+    }
+
+    // failed loads count too: a slow loader that ends in a timeout is exactly what the timing is for
+    void load(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+    }
+
+    void coalescedLoad() {
+        coalescedLoads.increment();
+    }
+
+    void leaseWait() {
+        leaseWaits.increment();
+    }
+
+    void earlyRefresh() {
+        earlyRefreshes.increment();
+    }
+
+    public long getL1Hits() {
+        return l1Hits.sum();
+    }
+
+    public long getL1Misses() {
+        return l1Misses.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getL2Misses() {
+        return l2Misses.sum();
+    }
+
+    public long getRemoteInvalidations() {
+        return remoteInvalidations.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getClears() {
+        return clears.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    public long getLeaseWaits() {
+        return leaseWaits.sum();
+    }
+
+    public long getEarlyRefreshes() {
+        return earlyRefreshes.sum();
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("l1Hits", getL1Hits());
+        snapshot.put("l1Misses", getL1Misses());
+        snapshot.put("l2Hits", getL2Hits());
+        snapshot.put("l2Misses", getL2Misses());
+        snapshot.put("remoteInvalidations", getRemoteInvalidations());
+        snapshot.put("evictions", getEvictions());
+        snapshot.put("clears", getClears());
+        snapshot.put("loads", getLoads());
+        snapshot.put("loadMillis", TimeUnit.NANOSECONDS.toMillis(getLoadNanos()));
+        snapshot.put("coalescedLoads", getCoalescedLoads());
+        snapshot.put("leaseWaits", getLeaseWaits());
+        snapshot.put("earlyRefreshes", getEarlyRefreshes());
+        return snapshot;
+    }
+}
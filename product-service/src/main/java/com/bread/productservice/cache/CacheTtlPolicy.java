@@ -0,0 +1,47 @@
+package com.bread.productservice.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Remote TTL per cache plus a random jitter, so entries written together (a page of products,
+ * the first requests after a deploy) do not all expire in the same second. Cache names use
+ * underscores, the configured keys kebab case ({@code product_by_id} -> {@code product-by-id}).
+ */
+public class CacheTtlPolicy {
+
+    private final Duration defaultTtl;
+    private final Map<String, Duration> ttls;
+    private final double jitter;
+
+    /**
+     * @param jitter fraction of the TTL added at random, e.g. 0.2 spreads a 10m TTL over 10-12 minutes
+     */
+    public CacheTtlPolicy(Duration defaultTtl, Map<String, Duration> ttls, double jitter) {
+        this.defaultTtl = defaultTtl;
+        this.ttls = ttls;
+        this.jitter = jitter;
+    }
+
+    public Duration ttl(String cacheName) {
+        return ttls.getOrDefault(cacheName.replace('_', '-'), defaultTtl);
+    }
+
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    /** Names of the caches with their own TTL, in cache-name form. */
+    public Iterable<String> configuredCacheNames() {
+        return ttls.keySet().stream().map(key -> key.replace('-', '_')).toList();
+    }
+
+    public RedisCacheWriter.TtlFunction ttlFunction(String cacheName) {
+        long base = ttl(cacheName).toMillis();
+        long spread = (long) (base * jitter);
+        return (key, value) -> Duration.ofMillis(spread > 0 ? base + ThreadLocalRandom.current().nextLong(spread + 1) : base);
+    }
+}
@@ -0,0 +1,46 @@
+package com.bread.productservice.cache;
+
+import com.bread.productservice.dto.ProductFilterInput;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.function.LongSupplier;
+
+/**
+ * Builds {@code v<catalogVersion>:<method>:<args>} keys for list, page and filter results.
+ * Filters are rendered in their normalized form so equivalent inputs share one entry.
+ *
+ * <p>{@link #byRevision} builds {@code r<revision>:...} keys instead, for results that carry whole
+ * products: their bodies change with every write (stock, names), and the ETag they are served
+ * under is the revision, so a cached body never outlives the tag it was served with.
+ */
+public class CatalogKeyGenerator implements KeyGenerator {
+
+    private final char prefix;
+    private final LongSupplier version;
+
+    public CatalogKeyGenerator(CatalogVersion catalogVersion) {
+        this('v', catalogVersion::current);
+    }
+
+    private CatalogKeyGenerator(char prefix, LongSupplier version) {
+        this.prefix = prefix;
+        this.version = version;
+    }
+
+    public static CatalogKeyGenerator byRevision(CatalogVersion catalogVersion) {
+        return new CatalogKeyGenerator('r', catalogVersion::revision);
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        StringBuilder key = new StringBuilder()
+                .append(prefix).append(version.getAsLong())
+                .append(':').append(method.getName());
+        for (Object param : params) {
+            key.append(':').append(param instanceof ProductFilterInput filter ? filter.toCacheKey() : param);
+        }
+        return key.toString();
+    }
+}
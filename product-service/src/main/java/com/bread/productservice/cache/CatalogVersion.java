@@ -0,0 +1,32 @@
+package com.bread.productservice.cache;
+
+import java.util.Collection;
+
+/**
+ * Monotonic version of the whole catalog. List, page and filter results are cached under keys
+ * that embed the current version, so a mutation only has to bump it: stale pages are never
+ * looked up again and expire on their own TTL instead of being deleted keyspace-wide.
+ *
+ * <p>The revision moves on every product write, including those that leave filter membership and
+ * facets alone (stock, names). HTTP validators are derived from it, and so are the keys of cached
+ * results that carry whole products, so a body is never served under a tag it does not match.
+ * {@link #bump()} moves it too.
+ */
+public interface CatalogVersion {
+
+    long current();
+
+    long bump();
+
+    long revision();
+
+    long touch();
+
+    /**
+     * Claims changes that every node observes on its own (change-stream events, by id), so the
+     * shared counters move once per change instead of once per node. Returns whether any of them
+     * was claimed here: only then does the caller bump or touch, the other nodes pick the new
+     * values up like any other node's bump.
+     */
+    boolean claim(Collection<String> changeIds);
+}
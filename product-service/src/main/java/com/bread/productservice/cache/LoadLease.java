@@ -0,0 +1,25 @@
+package com.bread.productservice.cache;
+
+/**
+ * Cross-node lock taken by {@link TwoTierCache} before loading a missing key, so that only one
+ * node hits Mongo for it while the others wait for the value to show up in the remote tier.
+ * Leases expire on their own: a crashed loader only delays the others, it never blocks them.
+ */
+public interface LoadLease {
+
+    /** Lease that is always granted: single-flight stays per node. */
+    LoadLease NONE = new LoadLease() {
+        @Override
+        public boolean tryAcquire(String cacheName, String key) {
+            return true;
+        }
+
+        @Override
+        public void release(String cacheName, String key) {
+        }
+    };
+
+    boolean tryAcquire(String cacheName, String key);
+
+    void release(String cacheName, String key);
+}
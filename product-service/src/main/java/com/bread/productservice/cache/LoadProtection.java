@@ -0,0 +1,25 @@
+package com.bread.productservice.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Stampede settings of a {@link TwoTierCacheManager}.
+ *
+ * @param lease         cross-node lease taken before loading a missing key
+ * @param leaseWait     how long a node that did not get the lease polls the remote tier before loading anyway
+ * @param remoteTtl     expected remote TTL per cache name (without jitter), {@code null} disables early refresh
+ * @param refreshBeta   XFetch aggressiveness: larger refreshes earlier, 0 disables early refresh
+ * @param refreshExecutor runs early refreshes off the request thread
+ */
+public record LoadProtection(LoadLease lease, Duration leaseWait, Function<String, Duration> remoteTtl,
+                             double refreshBeta, Executor refreshExecutor) {
+
+    /** Per-node single-flight only: no lease, no early refresh. */
+    public static final LoadProtection SINGLE_FLIGHT = new LoadProtection(LoadLease.NONE, Duration.ZERO, null, 0, Runnable::run);
+
+    boolean refreshesEarly(String cacheName) {
+        return refreshBeta > 0 && remoteTtl != null && remoteTtl.apply(cacheName) != null;
+    }
+}
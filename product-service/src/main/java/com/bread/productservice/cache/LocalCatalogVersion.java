@@ -0,0 +1,46 @@
+package com.bread.productservice.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-JVM catalog version, used by tests and benchmarks.
+ */
+public class LocalCatalogVersion implements CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong revision = new AtomicLong();
+    private final Set<String> claimedChanges = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public long current() {
+        return version.get();
+    }
+
+    @Override
+    public long bump() {
+        revision.incrementAndGet();
+        return version.incrementAndGet();
+    }
+
+    @Override
+    public long revision() {
+        return revision.get();
+    }
+
+    @Override
+    public long touch() {
+        return revision.incrementAndGet();
+    }
+
+    @Override
+    public boolean claim(Collection<String> changeIds) {
+        boolean claimed = false;
+        for (String changeId : changeIds) {
+            claimed |= claimedChanges.add(changeId);
+        }
+        return claimed;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bread.productservice.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-JVM lease shared by several cache managers, used by tests to stand in for Redis.
+ */
+public class LocalLoadLease implements LoadLease {
+
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean tryAcquire(String cacheName, String key) {
+        return held.add(cacheName + ":" + key);
+    }
+
+    @Override
+    public void release(String cacheName, String key) {
+        held.remove(cacheName + ":" + key);
+    }
+}
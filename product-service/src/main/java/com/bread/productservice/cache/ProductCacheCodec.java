@@ -0,0 +1,348 @@
+package com.bread.productservice.cache;
+
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.model.Product;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Redis value serializer for the product caches: a tagged binary encoding of {@link Product},
+ * {@code List<Product>}, {@code PagedResponseDTO<Product>} and {@code Long}; any other value is
+ * stored as the JSON of the wrapped serializer inside the same envelope. Encoded values of at
+ * least {@code compressionThreshold} bytes are LZ4-compressed when that makes them smaller.
+ *
+ * <p>Layout: magic, format version, flags, [uncompressed length if compressed], tag, payload.
+ * Values without the magic byte are read as plain JSON, so entries written before the switch
+ * stay readable; a format version this node does not know reads as a cache miss. To roll out
+ * across nodes that only understand JSON, deploy with {@code binary=false} first (read both,
+ * write JSON), then turn binary writes on.
+ */
+public class ProductCacheCodec implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xBC; // never the first byte of JSON text
+    static final byte FORMAT_VERSION = 2; // 2: Product.version
+    private static final byte FLAG_LZ4 = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_PRODUCT = 1;
+    private static final byte TAG_PRODUCT_LIST = 2;
+    private static final byte TAG_PRODUCT_PAGE = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_JSON = 5;
+
+    // presence bits of the nullable/boolean Product fields
+    private static final int HAS_PRICE = 1;
+    private static final int HAS_QUANTITY = 1 << 1;
+    private static final int HAS_DISCOUNT = 1 << 2;
+    private static final int ON_SALE = 1 << 3;
+    private static final int HAS_VERSION = 1 << 4;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final RedisSerializer<Object> json;
+    private final boolean binary;
+    private final int compressionThreshold;
+
+    /**
+     * @param json                 fallback for other value types and for entries without the magic byte
+     * @param binary               {@code false} writes plain JSON (reads still accept both)
+     * @param compressionThreshold minimum encoded size in bytes to try LZ4, negative to never compress
+     */
+    public ProductCacheCodec(RedisSerializer<Object> json, boolean binary, int compressionThreshold) {
+        this.json = json;
+        this.binary = binary;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!binary) {
+            return json.serialize(value);
+        }
+        Output body = new Output(256);
+        writeValue(body, value);
+
+        if (compressionThreshold >= 0 && body.size >= compressionThreshold) {
+            byte[] compressed = new byte[COMPRESSOR.maxCompressedLength(body.size)];
+            int compressedLength = COMPRESSOR.compress(body.buffer, 0, body.size, compressed, 0, compressed.length);
+            if (compressedLength + 5 < body.size) {
+                Output out = new Output(compressedLength + 8);
+                out.writeByte(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                out.writeByte(FLAG_LZ4);
+                out.writeVarInt(body.size);
+                out.writeBytes(compressed, 0, compressedLength);
+                return out.toByteArray();
+            }
+        }
+        Output out = new Output(body.size + 3);
+        out.writeByte(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(0);
+        out.writeBytes(body.buffer, 0, body.size);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return json.deserialize(bytes); // written by the JSON serializer
+        }
+        if (bytes.length < 3 || bytes[1] != FORMAT_VERSION) {
+            return null; // other format version: miss, the caller reloads and overwrites it
+        }
+        Input in = new Input(bytes, 3);
+        if ((bytes[2] & FLAG_LZ4) != 0) {
+            int length = in.readVarInt();
+            byte[] body = new byte[length];
+            DECOMPRESSOR.decompress(bytes, in.position, body, 0, length);
+            in = new Input(body, 0);
+        }
+        return readValue(in);
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null || value instanceof NullValue) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Product product) {
+            out.writeByte(TAG_PRODUCT);
+            writeProduct(out, product);
+        } else if (value instanceof List<?> list && onlyProducts(list)) {
+            out.writeByte(TAG_PRODUCT_LIST);
+            writeProducts(out, list);
+        } else if (value instanceof PagedResponseDTO<?> page && page.getContent() != null && onlyProducts(page.getContent())) {
+            out.writeByte(TAG_PRODUCT_PAGE);
+            out.writeVarInt(page.getPageNumber());
+            out.writeVarInt(page.getPageSize());
+            out.writeByte((page.getTotalElements() != null ? 1 : 0) | (page.getTotalPages() != null ? 2 : 0) | (page.isLast() ? 4 : 0));
+            if (page.getTotalElements() != null) {
+                out.writeLong(page.getTotalElements());
+            }
+            if (page.getTotalPages() != null) {
+                out.writeVarInt(page.getTotalPages());
+            }
+            writeProducts(out, page.getContent());
+        } else if (value instanceof Long number) {
+            out.writeByte(TAG_LONG);
+            out.writeLong(number);
+        } else {
+            out.writeByte(TAG_JSON);
+            byte[] encoded = json.serialize(value);
+            out.writeBytes(encoded, 0, encoded.length);
+        }
+    }
+
+    private Object readValue(Input in) {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> NullValue.INSTANCE;
+            case TAG_PRODUCT -> readProduct(in);
+            case TAG_PRODUCT_LIST -> readProducts(in);
+            case TAG_PRODUCT_PAGE -> {
+                int pageNumber = in.readVarInt();
+                int pageSize = in.readVarInt();
+                int flags = in.readByte();
+                Long totalElements = (flags & 1) != 0 ? in.readLong() : null;
+                Integer totalPages = (flags & 2) != 0 ? in.readVarInt() : null;
+                yield new PagedResponseDTO<>(readProducts(in), pageNumber, pageSize, totalElements, totalPages, (flags & 4) != 0);
+            }
+            case TAG_LONG -> in.readLong();
+            case TAG_JSON -> json.deserialize(Arrays.copyOfRange(in.bytes, in.position, in.bytes.length));
+            default -> throw new SerializationException("Unknown cache value tag " + tag);
+        };
+    }
+
+    private static boolean onlyProducts(List<?> list) {
+        for (Object item : list) {
+            if (!(item instanceof Product)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeProducts(Output out, List<?> products) {
+        out.writeVarInt(products.size());
+        for (Object product : products) {
+            writeProduct(out, (Product) product);
+        }
+    }
+
+    // ArrayList: same mutable list type the JSON serializer hands back
+    private static List<Product> readProducts(Input in) {
+        int size = in.readVarInt();
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(readProduct(in));
+        }
+        return products;
+    }
+
+    private static void writeProduct(Output out, Product product) {
+        out.writeByte((product.getPrice() != null ? HAS_PRICE : 0)
+                | (product.getQuantity() != null ? HAS_QUANTITY : 0)
+                | (product.getDiscountPercentage() != null ? HAS_DISCOUNT : 0)
+                | (product.isOnSale() ? ON_SALE : 0)
+                | (product.getVersion() != null ? HAS_VERSION : 0));
+        out.writeString(product.getId());
+        out.writeString(product.getName());
+        out.writeString(product.getDescription());
+        out.writeString(product.getImgUrl());
+        out.writeString(product.getType());
+        out.writeString(product.getFlavor());
+        if (product.getPrice() != null) {
+            out.writeLong(Double.doubleToRawLongBits(product.getPrice()));
+        }
+        if (product.getQuantity() != null) {
+            out.writeVarInt(product.getQuantity());
+        }
+        if (product.getDiscountPercentage() != null) {
+            out.writeLong(Double.doubleToRawLongBits(product.getDiscountPercentage()));
+        }
+        if (product.getVersion() != null) {
+            out.writeLong(product.getVersion());
+        }
+    }
+
+    private static Product readProduct(Input in) {
+        int flags = in.readByte();
+        Product product = new Product();
+        product.setId(in.readString());
+        product.setName(in.readString());
+        product.setDescription(in.readString());
+        product.setImgUrl(in.readString());
+        product.setType(in.readString());
+        product.setFlavor(in.readString());
+        product.setOnSale((flags & ON_SALE) != 0);
+        if ((flags & HAS_PRICE) != 0) {
+            product.setPrice(Double.longBitsToDouble(in.readLong()));
+        }
+        if ((flags & HAS_QUANTITY) != 0) {
+            product.setQuantity(in.readVarInt());
+        }
+        if ((flags & HAS_DISCOUNT) != 0) {
+            product.setDiscountPercentage(Double.longBitsToDouble(in.readLong()));
+        }
+        if ((flags & HAS_VERSION) != 0) {
+            product.setVersion(in.readLong());
+        }
+        return product;
+    }
+
+    // growable buffer; ints as unsigned varints (quantities and sizes are never negative), strings as length+1 (0 = null)
+    private static final class Output {
+
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        byte readByte() {
+            return bytes[position++];
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
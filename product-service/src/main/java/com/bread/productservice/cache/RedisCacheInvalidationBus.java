@@ -0,0 +1,84 @@
+package com.bread.productservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts invalidations over a Redis pub/sub channel.
+ * Wire format: {@code E|origin|cache|key} for an evict, {@code B|origin|cache|key\nkey...} for a
+ * bulk evict and {@code C|origin|cache} for a clear.
+ */
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheInvalidationBus.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisCacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        try {
+            redisTemplate.convertAndSend(channel, encode(invalidation));
+        } catch (Exception e) {
+            // the L1 TTL bounds how long other nodes can serve the stale entry
+            log.warn("Could not publish cache invalidation {}: {}", invalidation, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation = decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (invalidation == null) {
+            log.warn("Ignoring malformed cache invalidation message");
+            return;
+        }
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    static String encode(CacheInvalidation invalidation) {
+        if (invalidation.isClear()) {
+            return "C|" + invalidation.origin() + "|" + invalidation.cacheName();
+        }
+        if (invalidation.keys().size() > 1) {
+            return "B|" + invalidation.origin() + "|" + invalidation.cacheName() + "|" + String.join("\n", invalidation.keys());
+        }
+        return "E|" + invalidation.origin() + "|" + invalidation.cacheName() + "|" + invalidation.keys().get(0);
+    }
+
+    static CacheInvalidation decode(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length == 3 && parts[0].equals("C")) {
+            return CacheInvalidation.clear(parts[1], parts[2]);
+        }
+        if (parts.length == 4 && parts[0].equals("E")) {
+            return CacheInvalidation.evict(parts[1], parts[2], parts[3]);
+        }
+        if (parts.length == 4 && parts[0].equals("B")) {
+            return new CacheInvalidation(parts[1], parts[2], List.of(parts[3].split("\n")));
+        }
+        return null;
+    }
+}
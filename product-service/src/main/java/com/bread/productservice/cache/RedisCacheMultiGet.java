@@ -0,0 +1,65 @@
+package com.bread.productservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Reads many entries of a {@link RedisCache} with a single MGET, using the cache's own key
+ * prefix and serializers so it sees exactly what {@code RedisCache.put} wrote.
+ */
+public class RedisCacheMultiGet implements RemoteMultiGet {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public RedisCacheMultiGet(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public Map<Object, Cache.ValueWrapper> getAll(Cache cache, Collection<?> keys) {
+        if (!(cache instanceof RedisCache redisCache)) {
+            return PER_KEY.getAll(cache, keys);
+        }
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.getKeyPrefixFor(cache.getName());
+        List<Object> orderedKeys = new ArrayList<>(keys);
+        byte[][] rawKeys = new byte[orderedKeys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = bytes(config.getKeySerializationPair().write(prefix + orderedKeys.get(i)));
+        }
+
+        List<byte[]> rawValues;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            rawValues = connection.stringCommands().mGet(rawKeys);
+        }
+
+        Map<Object, Cache.ValueWrapper> found = new HashMap<>();
+        for (int i = 0; rawValues != null && i < rawValues.size(); i++) {
+            byte[] raw = rawValues.get(i);
+            if (raw != null) {
+                Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(raw));
+                if (value != null) { // null: a codec format this node cannot read, same as a miss
+                    found.put(orderedKeys.get(i), new SimpleValueWrapper(value instanceof NullValue ? null : value));
+                }
+            }
+        }
+        return found;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,147 @@
+package com.bread.productservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog version shared through a Redis counter. Reads are served from a local copy that is
+ * pushed over pub/sub on every bump and re-synced from Redis periodically in case a message is lost.
+ * The revision is a second counter next to it ({@code <key>:revision}), announced on the same
+ * channel with an {@code r} prefix. Claims are {@code SET <key>:change:<id> NX PX claim-ttl}, all
+ * of a batch in one script call.
+ */
+public class RedisCatalogVersion implements CatalogVersion, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCatalogVersion.class);
+    private static final String REVISION_PREFIX = "r";
+    // number of keys newly set
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+            "local claimed = 0 "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "if redis.call('set', key, '1', 'NX', 'PX', ARGV[1]) then claimed = claimed + 1 end "
+                    + "end "
+                    + "return claimed", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+    private final String revisionKey;
+    private final String channel;
+    private final long resyncNanos;
+    private final Duration claimTtl;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong revision = new AtomicLong();
+    private volatile long lastSync = Long.MIN_VALUE;
+
+    public RedisCatalogVersion(StringRedisTemplate redisTemplate, String key, String channel, Duration resyncInterval, Duration claimTtl) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+        this.revisionKey = key + ":revision";
+        this.channel = channel;
+        this.resyncNanos = resyncInterval.toNanos();
+        this.claimTtl = claimTtl;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public long current() {
+        resyncIfDue();
+        return version.get();
+    }
+
+    @Override
+    public long bump() {
+        touch();
+        return increment(key, version, "");
+    }
+
+    @Override
+    public long revision() {
+        resyncIfDue();
+        return revision.get();
+    }
+
+    @Override
+    public long touch() {
+        return increment(revisionKey, revision, REVISION_PREFIX);
+    }
+
+    @Override
+    public boolean claim(Collection<String> changeIds) {
+        if (changeIds.isEmpty()) {
+            return false;
+        }
+        try {
+            List<String> keys = changeIds.stream().map(id -> key + ":change:" + id).toList();
+            Long claimed = redisTemplate.execute(CLAIM, keys, Long.toString(claimTtl.toMillis()));
+            return claimed != null && claimed > 0;
+        } catch (Exception e) {
+            // Redis unavailable: bump anyway, an extra bump costs cache entries, a missing one serves stale pages
+            log.warn("Could not claim {} catalog changes in Redis: {}", changeIds.size(), e.getMessage());
+            return true;
+        }
+    }
+
+    private long increment(String counterKey, AtomicLong local, String prefix) {
+        try {
+            Long bumped = redisTemplate.opsForValue().increment(counterKey);
+            if (bumped != null) {
+                local.accumulateAndGet(bumped, Math::max);
+                redisTemplate.convertAndSend(channel, prefix + bumped);
+                return bumped;
+            }
+        } catch (Exception e) {
+            log.warn("Could not bump {} in Redis: {}", counterKey, e.getMessage());
+        }
+        // Redis unavailable: at least this node stops serving its stale pages
+        return local.incrementAndGet();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (body.startsWith(REVISION_PREFIX)) {
+                revision.accumulateAndGet(Long.parseLong(body.substring(REVISION_PREFIX.length())), Math::max);
+            } else {
+                version.accumulateAndGet(Long.parseLong(body), Math::max);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed catalog version message");
+        }
+    }
+
+    private void resyncIfDue() {
+        if (lastSync == Long.MIN_VALUE || System.nanoTime() - lastSync > resyncNanos) {
+            resync();
+        }
+    }
+
+    private void resync() {
+        lastSync = System.nanoTime();
+        try {
+            List<String> stored = redisTemplate.opsForValue().multiGet(List.of(key, revisionKey));
+            if (stored != null && stored.get(0) != null) {
+                version.accumulateAndGet(Long.parseLong(stored.get(0)), Math::max);
+            }
+            if (stored != null && stored.get(1) != null) {
+                revision.accumulateAndGet(Long.parseLong(stored.get(1)), Math::max);
+            }
+        } catch (Exception e) {
+            log.warn("Could not read catalog version from Redis: {}", e.getMessage());
+        }
+    }
+}
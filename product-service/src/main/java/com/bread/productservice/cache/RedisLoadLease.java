@@ -0,0 +1,56 @@
+package com.bread.productservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Lease stored as {@code SET lease:<cache>:<key> <node> NX PX ttl}. Release only deletes the
+ * key if this node still owns it, so a lease that expired and was taken over is left alone.
+ */
+public class RedisLoadLease implements LoadLease {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisLoadLease.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId;
+    private final Duration ttl;
+
+    public RedisLoadLease(StringRedisTemplate redisTemplate, String nodeId, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.nodeId = nodeId;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public boolean tryAcquire(String cacheName, String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey(cacheName, key), nodeId, ttl));
+        } catch (Exception e) {
+            // Redis unavailable: load anyway, the per-node single-flight still applies
+            log.warn("Could not take load lease in Redis: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void release(String cacheName, String key) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(leaseKey(cacheName, key)), nodeId);
+        } catch (Exception e) {
+            log.warn("Could not release load lease in Redis: {}", e.getMessage());
+        }
+    }
+
+    private static String leaseKey(String cacheName, String key) {
+        return "lease:" + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bread.productservice.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk read against the remote tier, used by {@link TwoTierCache#getAll}. Keys that are not
+ * cached are left out of the result; cached nulls come back as wrappers holding null.
+ */
+public interface RemoteMultiGet {
+
+    // one round trip per key, for remote caches without a native bulk read
+    RemoteMultiGet PER_KEY = (cache, keys) -> {
+        Map<Object, Cache.ValueWrapper> found = new HashMap<>();
+        for (Object key : keys) {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            if (wrapper != null) {
+                found.put(key, wrapper);
+            }
+        }
+        return found;
+    };
+
+    Map<Object, Cache.ValueWrapper> getAll(Cache cache, Collection<?> keys);
+}
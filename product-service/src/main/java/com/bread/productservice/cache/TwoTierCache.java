@@ -0,0 +1,431 @@
+package com.bread.productservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Cache that keeps a bounded in-process copy (L1) in front of a shared remote cache (L2, Redis).
+ * Reads try L1 first, then L2, and fill L1 on the way back. Writes go to both tiers and are
+ * broadcast so that the other nodes drop their L1 copy of the key.
+ *
+ * <p>Loads through {@link #get(Object, Callable)} (i.e. {@code @Cacheable(sync = true)}) are
+ * protected against stampedes: concurrent misses for a key share one load per node, nodes
+ * coordinate through a {@link LoadLease}, and hot entries are reloaded in the background shortly
+ * before their remote TTL runs out (probabilistic early expiration, "XFetch").
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCache.class);
+    private static final long LEASE_POLL_MILLIS = 20;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final RemoteMultiGet remoteMultiGet;
+    private final CacheInvalidationBus bus;
+    private final String nodeId;
+    private final LoadProtection protection;
+    private final CacheTierStats stats = new CacheTierStats();
+    // one entry per key being loaded on this node; completed with the store value
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // when the remote copy of a key loaded here expires, and how long the load took
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadTiming> timings;
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                        CacheInvalidationBus bus, String nodeId) {
+        this(name, local, remote, RemoteMultiGet.PER_KEY, bus, nodeId);
+    }
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                        RemoteMultiGet remoteMultiGet, CacheInvalidationBus bus, String nodeId) {
+        this(name, local, remote, remoteMultiGet, bus, nodeId, LoadProtection.SINGLE_FLIGHT);
+    }
+
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                        RemoteMultiGet remoteMultiGet, CacheInvalidationBus bus, String nodeId, LoadProtection protection) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.remoteMultiGet = remoteMultiGet;
+        this.bus = bus;
+        this.nodeId = nodeId;
+        this.protection = protection;
+        this.timings = Caffeine.newBuilder()
+                .maximumSize(local.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(10_000L))
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    public CacheTierStats getStats() {
+        return stats;
+    }
+
+    public long getLocalSize() {
+        return local.estimatedSize();
+    }
+
+    /** L1 entries dropped for size or age; 0 unless the local cache records stats. */
+    public long getLocalEvictions() {
+        return local.stats().evictionCount();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            stats.l1Hit();
+            return value;
+        }
+        stats.l1Miss();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            stats.l2Miss();
+            return null;
+        }
+        stats.l2Hit();
+        Object storeValue = toStoreValue(wrapper.get());
+        local.put(localKey, storeValue);
+        return storeValue;
+    }
+
+    /**
+     * Bulk lookup: one L1 pass, then a single remote multi-get for the rest. Keys missing from
+     * both tiers are absent from the result; cached nulls are present with a null value.
+     */
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> found = new HashMap<>();
+        List<Object> remaining = new ArrayList<>();
+        for (Object key : keys) {
+            Object value = local.getIfPresent(localKey(key));
+            if (value != null) {
+                stats.l1Hit();
+                found.put(key, new SimpleValueWrapper(fromStoreValue(value)));
+            } else {
+                stats.l1Miss();
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return found;
+        }
+
+        Map<Object, ValueWrapper> remoteFound = remoteMultiGet.getAll(remote, remaining);
+        for (Object key : remaining) {
+            ValueWrapper wrapper = remoteFound.get(key);
+            if (wrapper == null) {
+                stats.l2Miss();
+                continue;
+            }
+            stats.l2Hit();
+            local.put(localKey(key), toStoreValue(wrapper.get()));
+            found.put(key, wrapper);
+        }
+        return found;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object storeValue = lookup(key);
+        if (storeValue != null) {
+            refreshEarlyIfDue(key, localKey, valueLoader);
+            return (T) fromStoreValue(storeValue);
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(localKey, flight);
+        if (leader != null) {
+            stats.coalescedLoad();
+            Object shared;
+            try {
+                shared = leader.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+            // null: an early refresh that could not run, nothing to share
+            return shared != null ? (T) fromStoreValue(shared) : get(key, valueLoader);
+        }
+        try {
+            // the previous leader may have filled L1 between our lookup and putIfAbsent
+            storeValue = local.getIfPresent(localKey);
+            if (storeValue == null) {
+                storeValue = loadOnce(key, localKey, valueLoader);
+            }
+            flight.complete(storeValue);
+            return (T) fromStoreValue(storeValue);
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    // only the lease holder calls the loader; the others wait for its value in the remote tier
+    private Object loadOnce(Object key, String localKey, Callable<?> valueLoader) throws Exception {
+        boolean leased = protection.lease().tryAcquire(name, localKey);
+        try {
+            if (!leased) {
+                stats.leaseWait();
+                Object loadedElsewhere = awaitRemote(key, localKey);
+                if (loadedElsewhere != null) {
+                    return loadedElsewhere;
+                }
+            }
+            long start = System.nanoTime();
+            Object value;
+            try {
+                value = valueLoader.call();
+            } finally {
+                stats.load(System.nanoTime() - start);
+            }
+            fill(key, value);
+            remember(localKey, System.nanoTime() - start);
+            return toStoreValue(value);
+        } finally {
+            if (leased) {
+                protection.lease().release(name, localKey);
+            }
+        }
+    }
+
+    private Object awaitRemote(Object key, String localKey) {
+        long deadline = System.nanoTime() + protection.leaseWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null) {
+                stats.l2Hit();
+                Object storeValue = toStoreValue(wrapper.get());
+                local.put(localKey, storeValue);
+                return storeValue;
+            }
+        }
+        return null; // lease holder too slow or gone: load it ourselves
+    }
+
+    private void remember(String localKey, long loadNanos) {
+        if (protection.refreshesEarly(name)) {
+            Duration ttl = protection.remoteTtl().apply(name);
+            timings.put(localKey, new LoadTiming(System.nanoTime() + ttl.toNanos(), loadNanos));
+        }
+    }
+
+    // XFetch: refresh once now - loadTime * beta * ln(random) passes the expiry, so slower loads start earlier
+    private void refreshEarlyIfDue(Object key, String localKey, Callable<?> valueLoader) {
+        LoadTiming timing = timings.getIfPresent(localKey);
+        if (timing == null) {
+            return;
+        }
+        double gap = timing.loadNanos() * protection.refreshBeta() * -Math.log(ThreadLocalRandom.current().nextDouble());
+        if (System.nanoTime() + gap < timing.expiresAtNanos()) {
+            return;
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey, flight) != null) {
+            return; // already being loaded or refreshed
+        }
+        timings.invalidate(localKey);
+        stats.earlyRefresh();
+        try {
+            protection.refreshExecutor().execute(() -> {
+                try {
+                    flight.complete(loadOnce(key, localKey, valueLoader));
+                } catch (Exception e) {
+                    log.warn("Early refresh of {}::{} failed: {}", name, localKey, e.getMessage());
+                    flight.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(localKey, flight);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(localKey, flight);
+            flight.complete(null); // waiters load it themselves
+        }
+    }
+
+    /**
+     * Non-blocking lookup used for reactive {@code @Cacheable} methods: L1 answers immediately,
+     * otherwise the remote tier's own async retrieve (Lettuce for Redis) is chained and fills L1.
+     */
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            stats.l1Hit();
+            return CompletableFuture.completedFuture(new SimpleValueWrapper(fromStoreValue(value)));
+        }
+        stats.l1Miss();
+
+        CompletableFuture<?> remoteValue = remote.retrieve(key);
+        if (remoteValue == null) {
+            stats.l2Miss();
+            return null;
+        }
+        return remoteValue.thenApply(found -> {
+            if (found == null) {
+                stats.l2Miss();
+                return null;
+            }
+            stats.l2Hit();
+            Object unwrapped = found instanceof ValueWrapper wrapper ? wrapper.get() : found;
+            local.put(localKey, toStoreValue(unwrapped));
+            return new SimpleValueWrapper(unwrapped);
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        CompletableFuture<?> cached = retrieve(key);
+        CompletableFuture<?> lookup = cached != null ? cached : CompletableFuture.completedFuture(null);
+        return lookup.thenCompose(found -> {
+            if (found != null) {
+                return CompletableFuture.completedFuture((T) ((ValueWrapper) found).get());
+            }
+            // same single-flight as get(key, loader), the followers chain on the leader's future
+            String localKey = localKey(key);
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> leader = inFlight.putIfAbsent(localKey, flight);
+            if (leader != null) {
+                stats.coalescedLoad();
+                return leader.thenApply(storeValue -> (T) fromStoreValue(storeValue));
+            }
+            long start = System.nanoTime();
+            CompletableFuture<T> loaded;
+            try {
+                loaded = valueLoader.get();
+            } catch (RuntimeException e) {
+                stats.load(System.nanoTime() - start);
+                inFlight.remove(localKey, flight);
+                flight.completeExceptionally(e);
+                throw e;
+            }
+            return loaded.whenComplete((value, error) -> {
+                stats.load(System.nanoTime() - start);
+                if (error == null) {
+                    fill(key, value);
+                    flight.complete(toStoreValue(value));
+                } else {
+                    flight.completeExceptionally(error);
+                }
+                inFlight.remove(localKey, flight);
+            });
+        });
+    }
+
+    /** A write: the other nodes drop their L1 copy, and may treat the key as changed. */
+    @Override
+    public void put(Object key, Object value) {
+        fill(key, value);
+        bus.publish(CacheInvalidation.evict(nodeId, name, localKey(key)));
+    }
+
+    /**
+     * A read-miss fill: what was just loaded from the database. Nothing is broadcast, since no
+     * other node's copy became stale because of it.
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.put(localKey(key), toStoreValue(existing != null ? existing.get() : value));
+        return existing;
+    }
+
+    // loads and early refreshes: the value is the database's, so there is nothing to tell the other nodes
+    private void fill(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        timings.invalidate(localKey(key));
+        stats.evict(1);
+        bus.publish(CacheInvalidation.evict(nodeId, name, localKey(key)));
+    }
+
+    /** Evicts many keys with a single broadcast, for bulk writes. */
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        bus.publish(new CacheInvalidation(nodeId, name, evictWithoutBroadcast(keys)));
+    }
+
+    /** Drops the keys from both tiers without telling the other nodes, for changes every node observes itself (change streams). */
+    public List<String> evictWithoutBroadcast(Collection<?> keys) {
+        List<String> localKeys = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            remote.evict(key);
+            localKeys.add(localKey(key));
+        }
+        local.invalidateAll(localKeys);
+        timings.invalidateAll(localKeys);
+        stats.evict(localKeys.size());
+        return localKeys;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        timings.invalidateAll();
+        stats.clear();
+        bus.publish(CacheInvalidation.clear(nodeId, name));
+    }
+
+    /** Applies an invalidation received from another node; only the L1 copy is touched. */
+    void onRemoteInvalidation(CacheInvalidation invalidation) {
+        stats.remoteInvalidation();
+        if (invalidation.isClear()) {
+            local.invalidateAll();
+            timings.invalidateAll();
+        } else {
+            local.invalidateAll(invalidation.keys());
+            timings.invalidateAll(invalidation.keys());
+        }
+    }
+
+    // Redis also stringifies keys (SimpleKey, ids...), so the same form is used locally and on the wire
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private record LoadTiming(long expiresAtNanos, long loadNanos) {
+    }
+}
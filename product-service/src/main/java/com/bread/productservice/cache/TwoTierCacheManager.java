@@ -0,0 +1,117 @@
+package com.bread.productservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Wraps the remote (Redis) {@link CacheManager} and decorates each of its caches with a
+ * size and TTL bounded in-process tier. Invalidations from other nodes arrive through the
+ * {@link CacheInvalidationBus} and only drop the local copies.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final RemoteMultiGet remoteMultiGet;
+    private final CacheInvalidationBus bus;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final LoadProtection protection;
+    private final String nodeId;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final List<Consumer<TwoTierCache>> creationListeners = new CopyOnWriteArrayList<>();
+
+    public TwoTierCacheManager(CacheManager remote, CacheInvalidationBus bus, long localMaximumSize, Duration localTtl) {
+        this(remote, RemoteMultiGet.PER_KEY, bus, localMaximumSize, localTtl);
+    }
+
+    public TwoTierCacheManager(CacheManager remote, RemoteMultiGet remoteMultiGet, CacheInvalidationBus bus,
+                               long localMaximumSize, Duration localTtl) {
+        this(remote, remoteMultiGet, bus, localMaximumSize, localTtl, LoadProtection.SINGLE_FLIGHT, UUID.randomUUID().toString());
+    }
+
+    public TwoTierCacheManager(CacheManager remote, RemoteMultiGet remoteMultiGet, CacheInvalidationBus bus,
+                               long localMaximumSize, Duration localTtl, LoadProtection protection, String nodeId) {
+        this.remote = remote;
+        this.remoteMultiGet = remoteMultiGet;
+        this.bus = bus;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.protection = protection;
+        this.nodeId = nodeId;
+        bus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> {
+            TwoTierCache created = new TwoTierCache(n, newLocalCache(), remoteCache, remoteMultiGet, bus, nodeId, protection);
+            creationListeners.forEach(listener -> listener.accept(created));
+            return created;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** Calls the listener for every cache created so far and for each one created later (caches are created on first use). */
+    public void onCacheCreated(Consumer<TwoTierCache> listener) {
+        creationListeners.add(listener);
+        caches.values().forEach(listener);
+    }
+
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            Map<String, Long> cacheStats = cache.getStats().snapshot();
+            cacheStats.put("l1Size", cache.getLocalSize());
+            cacheStats.put("l1Evictions", cache.getLocalEvictions());
+            stats.put(name, cacheStats);
+        });
+        return stats;
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.onRemoteInvalidation(invalidation);
+        }
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<String, Object> newLocalCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+    }
+}
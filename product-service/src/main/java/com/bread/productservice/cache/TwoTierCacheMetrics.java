@@ -0,0 +1,61 @@
+package com.bread.productservice.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the {@link CacheTierStats} of every {@link TwoTierCache} as meters tagged with the
+ * cache name, including caches created after binding. The counters are read when the registry is
+ * scraped, so the cache hot path keeps its plain {@code LongAdder} increments.
+ */
+public class TwoTierCacheMetrics implements MeterBinder {
+
+    private final TwoTierCacheManager cacheManager;
+
+    public TwoTierCacheMetrics(TwoTierCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cacheManager.onCacheCreated(cache -> bind(cache, registry));
+    }
+
+    private static void bind(TwoTierCache cache, MeterRegistry registry) {
+        Tags tags = Tags.of("cache", cache.getName());
+        CacheTierStats stats = cache.getStats();
+        counter(registry, "cache.gets", tags.and("tier", "l1", "result", "hit"), stats, CacheTierStats::getL1Hits);
+        counter(registry, "cache.gets", tags.and("tier", "l1", "result", "miss"), stats, CacheTierStats::getL1Misses);
+        counter(registry, "cache.gets", tags.and("tier", "l2", "result", "hit"), stats, CacheTierStats::getL2Hits);
+        counter(registry, "cache.gets", tags.and("tier", "l2", "result", "miss"), stats, CacheTierStats::getL2Misses);
+        counter(registry, "cache.evictions", tags.and("cause", "write"), stats, CacheTierStats::getEvictions);
+        FunctionCounter.builder("cache.evictions", cache, TwoTierCache::getLocalEvictions)
+                .tags(tags.and("cause", "capacity"))
+                .description("L1 entries dropped for size or age")
+                .register(registry);
+        counter(registry, "cache.clears", tags, stats, CacheTierStats::getClears);
+        counter(registry, "cache.remote.invalidations", tags, stats, CacheTierStats::getRemoteInvalidations);
+        counter(registry, "cache.loads.coalesced", tags, stats, CacheTierStats::getCoalescedLoads);
+        counter(registry, "cache.lease.waits", tags, stats, CacheTierStats::getLeaseWaits);
+        counter(registry, "cache.refreshes.early", tags, stats, CacheTierStats::getEarlyRefreshes);
+        FunctionTimer.builder("cache.loads", stats, CacheTierStats::getLoads, CacheTierStats::getLoadNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("Calls of the value loader and the time spent in them")
+                .register(registry);
+        Gauge.builder("cache.size", cache, TwoTierCache::getLocalSize)
+                .tags(tags.and("tier", "l1"))
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, Tags tags, CacheTierStats stats,
+                                ToDoubleFunction<CacheTierStats> count) {
+        FunctionCounter.builder(name, stats, count).tags(tags).register(registry);
+    }
+}
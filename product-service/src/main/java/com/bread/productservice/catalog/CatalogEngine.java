@@ -0,0 +1,137 @@
+package com.bread.productservice.catalog;
+
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.repository.ProductRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Read-side engine that answers filtered, price-sorted paging from memory.
+ * Each change is applied on the writer's thread to the current {@link CatalogSnapshot},
+ * deriving the next one incrementally ({@link CatalogSnapshot#apply}), and swapped in whole:
+ * readers never wait and never rebuild, and a write is visible to this node's next read.
+ * Changes that arrive while the catalog is read from Mongo are kept and replayed over the loaded
+ * snapshot, so a write racing a (re)load is never overwritten by the older read.
+ */
+@Component
+public class CatalogEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogEngine.class);
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final Map<String, Product> catalog = new ConcurrentHashMap<>();
+    // serializes writers (changes and loads); readers only read the volatile snapshot
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    private volatile boolean ready;
+    // changes seen since the running load started reading; null when no load runs
+    private List<ProductChangedEvent> pending;
+
+    public CatalogEngine(ProductRepository productRepository, @Value("${products.catalog-engine.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        startBuffering();
+        try {
+            long start = System.nanoTime();
+            load(productRepository.findAll());
+            log.info("Catalog engine loaded with {} products in {} ms", catalog.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            stopBuffering();
+            log.warn("Catalog engine not loaded, filtered paging stays on Mongo: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        writeLock.lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            if (ready) {
+                apply(event);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Replaces the catalog, then replays the changes buffered since the load started reading. */
+    public void load(Collection<Product> products) {
+        writeLock.lock();
+        try {
+            catalog.clear();
+            products.forEach(product -> catalog.put(product.getId(), product));
+            snapshot = new CatalogSnapshot(catalog.values());
+            if (pending != null) {
+                pending.forEach(this::apply);
+                pending = null;
+            }
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // before the catalog is read: a change from here on may be missing from what the read returns
+    private void startBuffering() {
+        writeLock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void stopBuffering() {
+        writeLock.lock();
+        try {
+            pending = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        Product previous = event.isDeleted() ? catalog.remove(event.productId()) : catalog.put(event.productId(), event.product());
+        if (previous != null || !event.isDeleted()) {
+            snapshot = snapshot.apply(previous, event.product());
+        }
+    }
+
+    public PagedResponseDTO<Product> query(ProductFilterInput filter, int page, int size, String sort, boolean includeTotals) {
+        PagedResponseDTO<Product> result = snapshot.query(filter, page, size, "DESC".equalsIgnoreCase(sort));
+        if (!includeTotals) {
+            result.setTotalElements(null);
+            result.setTotalPages(null);
+        }
+        return result;
+    }
+}
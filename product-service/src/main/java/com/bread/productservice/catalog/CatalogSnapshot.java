@@ -0,0 +1,253 @@
+package com.bread.productservice.catalog;
+
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Immutable, price-ordered view of the catalog. Position {@code i} is the i-th product by
+ * (price, id); every facet value maps to a compressed bitmap of positions, so a filter is a
+ * handful of bitmap AND/ORs plus a binary-searched price range, and totals are a cardinality.
+ * A single product change derives the next snapshot with {@link #apply}: the arrays are copied
+ * and the bitmaps shifted around the two positions that moved, nothing is re-sorted.
+ */
+final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(List.of());
+
+    private static final Comparator<Product> BY_PRICE_THEN_ID = Comparator
+            .comparingDouble(CatalogSnapshot::priceKey)
+            .thenComparing(Product::getId);
+
+    private final Product[] products;
+    private final double[] prices;
+    private final Map<String, RoaringBitmap> byType;
+    private final Map<String, RoaringBitmap> byFlavor;
+    private final RoaringBitmap onSale;
+    private final RoaringBitmap notOnSale;
+
+    CatalogSnapshot(Collection<Product> catalog) {
+        products = catalog.toArray(new Product[0]);
+        Arrays.sort(products, BY_PRICE_THEN_ID);
+        prices = new double[products.length];
+        byType = new HashMap<>();
+        byFlavor = new HashMap<>();
+        onSale = new RoaringBitmap();
+        notOnSale = new RoaringBitmap();
+        for (int position = 0; position < products.length; position++) {
+            Product product = products[position];
+            prices[position] = priceKey(product);
+            byType.computeIfAbsent(key(product.getType()), k -> new RoaringBitmap()).add(position);
+            byFlavor.computeIfAbsent(key(product.getFlavor()), k -> new RoaringBitmap()).add(position);
+            (product.isOnSale() ? onSale : notOnSale).add(position);
+        }
+        byType.values().forEach(RoaringBitmap::runOptimize);
+        byFlavor.values().forEach(RoaringBitmap::runOptimize);
+        onSale.runOptimize();
+        notOnSale.runOptimize();
+    }
+
+    private CatalogSnapshot(Product[] products, double[] prices, Map<String, RoaringBitmap> byType, Map<String, RoaringBitmap> byFlavor,
+                            RoaringBitmap onSale, RoaringBitmap notOnSale) {
+        this.products = products;
+        this.prices = prices;
+        this.byType = byType;
+        this.byFlavor = byFlavor;
+        this.onSale = onSale;
+        this.notOnSale = notOnSale;
+    }
+
+    /**
+     * The snapshot after one product changed: {@code previous} is the version in this snapshot
+     * ({@code null} for an insert), {@code next} the new one ({@code null} for a delete).
+     */
+    CatalogSnapshot apply(Product previous, Product next) {
+        int removed = previous != null ? positionOf(previous) : -1;
+        int length = products.length - (removed >= 0 ? 1 : 0);
+        Product[] newProducts = new Product[length + (next != null ? 1 : 0)];
+        double[] newPrices = new double[newProducts.length];
+        copyWithout(products, removed, newProducts, products.length);
+        copyWithout(prices, removed, newPrices, prices.length);
+
+        int inserted = -1;
+        if (next != null) {
+            inserted = insertionPoint(newProducts, length, next);
+            System.arraycopy(newProducts, inserted, newProducts, inserted + 1, length - inserted);
+            System.arraycopy(newPrices, inserted, newPrices, inserted + 1, length - inserted);
+            newProducts[inserted] = next;
+            newPrices[inserted] = priceKey(next);
+        }
+
+        Map<String, RoaringBitmap> newByType = shifted(byType, removed, inserted);
+        Map<String, RoaringBitmap> newByFlavor = shifted(byFlavor, removed, inserted);
+        RoaringBitmap newOnSale = shifted(onSale, removed, inserted);
+        RoaringBitmap newNotOnSale = shifted(notOnSale, removed, inserted);
+        if (next != null) {
+            newByType.computeIfAbsent(key(next.getType()), k -> new RoaringBitmap()).add(inserted);
+            newByFlavor.computeIfAbsent(key(next.getFlavor()), k -> new RoaringBitmap()).add(inserted);
+            (next.isOnSale() ? newOnSale : newNotOnSale).add(inserted);
+        }
+        return new CatalogSnapshot(newProducts, newPrices, newByType, newByFlavor, newOnSale, newNotOnSale);
+    }
+
+    // binary search by (price, id); a scan by id if the instance changed in place since it was indexed
+    private int positionOf(Product product) {
+        int position = Arrays.binarySearch(products, product, BY_PRICE_THEN_ID);
+        if (position >= 0 && products[position].getId().equals(product.getId())) {
+            return position;
+        }
+        for (int i = 0; i < products.length; i++) {
+            if (products[i].getId().equals(product.getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int insertionPoint(Product[] products, int length, Product product) {
+        int position = Arrays.binarySearch(products, 0, length, product, BY_PRICE_THEN_ID);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    // source into the start of target, skipping position removed (none when negative)
+    private static void copyWithout(Object source, int removed, Object target, int length) {
+        if (removed < 0) {
+            System.arraycopy(source, 0, target, 0, length);
+        } else {
+            System.arraycopy(source, 0, target, 0, removed);
+            System.arraycopy(source, removed + 1, target, removed, length - removed - 1);
+        }
+    }
+
+    private static Map<String, RoaringBitmap> shifted(Map<String, RoaringBitmap> bitmaps, int removed, int inserted) {
+        Map<String, RoaringBitmap> result = new HashMap<>();
+        bitmaps.forEach((value, bitmap) -> {
+            RoaringBitmap positions = shifted(bitmap, removed, inserted);
+            if (!positions.isEmpty()) {
+                result.put(value, positions);
+            }
+        });
+        return result;
+    }
+
+    // drops position removed (closing the gap), then opens a gap at inserted
+    private static RoaringBitmap shifted(RoaringBitmap bitmap, int removed, int inserted) {
+        RoaringBitmap result = bitmap.clone();
+        if (removed >= 0) {
+            result.remove(removed);
+            shiftFrom(result, removed + 1, -1);
+        }
+        if (inserted >= 0) {
+            shiftFrom(result, inserted, 1);
+        }
+        return result;
+    }
+
+    private static void shiftFrom(RoaringBitmap bitmap, int from, int offset) {
+        if (bitmap.isEmpty() || from > bitmap.last()) {
+            return;
+        }
+        long end = (long) bitmap.last() + 1;
+        RoaringBitmap tail = RoaringBitmap.and(bitmap, RoaringBitmap.bitmapOfRange(from, end));
+        bitmap.remove(from, end);
+        bitmap.or(RoaringBitmap.addOffset(tail, offset));
+    }
+
+    int size() {
+        return products.length;
+    }
+
+    PagedResponseDTO<Product> query(ProductFilterInput filter, int page, int size, boolean descending) {
+        RoaringBitmap matches = matching(filter);
+        int total = matches.getCardinality();
+
+        List<Product> content = new ArrayList<>(size);
+        long from = (long) page * size;
+        for (long i = from; i < Math.min(total, from + size); i++) {
+            int rank = (int) (descending ? total - 1 - i : i);
+            content.add(products[matches.select(rank)]);
+        }
+
+        int totalPages = size == 0 ? 1 : (int) Math.ceil((double) total / size);
+        return new PagedResponseDTO<>(content, page, size, (long) total, totalPages, page + 1 >= totalPages);
+    }
+
+    private RoaringBitmap matching(ProductFilterInput filter) {
+        RoaringBitmap result = RoaringBitmap.bitmapOfRange(0, products.length);
+        if (filter == null) {
+            return result;
+        }
+        if (filter.getTypes() != null && !filter.getTypes().isEmpty()) {
+            result.and(union(byType, filter.getTypes().stream().filter(Objects::nonNull).map(ProductType::name).toList()));
+        }
+        if (filter.getFlavors() != null && !filter.getFlavors().isEmpty()) {
+            result.and(union(byFlavor, filter.getFlavors().stream().filter(Objects::nonNull).map(Flavor::name).toList()));
+        }
+        if (filter.getOnSale() != null) {
+            result.and(filter.getOnSale() ? onSale : notOnSale);
+        }
+        if (filter.getPriceFrom() != null && filter.getPriceTo() != null) {
+            int from = lowerBound(filter.getPriceFrom());
+            int to = upperBound(filter.getPriceTo());
+            result.and(from < to ? RoaringBitmap.bitmapOfRange(from, to) : new RoaringBitmap());
+        }
+        return result;
+    }
+
+    private static RoaringBitmap union(Map<String, RoaringBitmap> bitmaps, List<String> values) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (String value : values) {
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    // first position with price >= value
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // first position with price > value
+    private int upperBound(double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Mongo sorts missing prices first, and a price range never matches them
+    private static double priceKey(Product product) {
+        return product.getPrice() != null ? product.getPrice() : Double.NEGATIVE_INFINITY;
+    }
+
+    // the collection collation makes type/flavor matching case-insensitive, so bitmaps are keyed upper-case
+    private static String key(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT);
+    }
+}
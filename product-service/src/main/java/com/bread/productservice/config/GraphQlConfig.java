@@ -0,0 +1,21 @@
+package com.bread.productservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public GraphQlDocumentCache graphQlDocumentCache(@Value("${products.graphql.document-cache-size:1000}") long maximumSize) {
+        return new GraphQlDocumentCache(maximumSize);
+    }
+
+    // parse and validate each distinct query once, on the MVC and WebFlux stacks alike
+    @Bean
+    public GraphQlSourceBuilderCustomizer graphQlDocumentCacheCustomizer(GraphQlDocumentCache documentCache) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentCache));
+    }
+}
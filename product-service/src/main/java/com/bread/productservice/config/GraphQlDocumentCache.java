@@ -0,0 +1,162 @@
+package com.bread.productservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQueryError;
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.language.Document;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Parsed and validated GraphQL documents by SHA-256 of the query text, so a query seen before
+ * goes straight to execution. The same entries back automatic persisted queries (Apollo's
+ * protocol): a request with {@code extensions.persistedQuery.sha256Hash} and the query text
+ * registers the hash, later ones may send the hash alone ({@link #PERSISTED_QUERY_MARKER} as the
+ * query). A hash this node does not know, or has evicted, is answered with
+ * {@code PersistedQueryNotFound} and the client resends the text, so nothing is shared between
+ * nodes. Documents with errors are not kept. Published as {@code graphql.documents.*}.
+ */
+public class GraphQlDocumentCache implements PreparsedDocumentProvider, MeterBinder {
+
+    /** Query text of a request that only sends a persisted query hash. */
+    public static final String PERSISTED_QUERY_MARKER = PersistedQuerySupport.PERSISTED_QUERY_MARKER;
+
+    private final Cache<String, PreparsedDocumentEntry> documents;
+    private final LongAdder persistedNotFound = new LongAdder();
+
+    public GraphQlDocumentCache(long maximumSize) {
+        this.documents = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    // lookups and parsing are in-memory and short: the future is always already completed
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput input,
+                                                                     Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        return CompletableFuture.completedFuture(lookup(input, parseAndValidate));
+    }
+
+    /** @deprecated graphql-java calls {@link #getDocumentAsync}; kept because the interface still declares it. */
+    @Deprecated
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput input, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        return lookup(input, parseAndValidate);
+    }
+
+    private PreparsedDocumentEntry lookup(ExecutionInput input, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        String persistedHash = persistedQueryHash(input.getExtensions());
+        if (persistedHash == null) {
+            return getOrParse(hash(input.getQuery()), input, parseAndValidate);
+        }
+        if (PERSISTED_QUERY_MARKER.equals(input.getQuery())) {
+            PreparsedDocumentEntry entry = documents.getIfPresent(persistedHash);
+            return entry != null ? entry : new PreparsedDocumentEntry(persistedQueryNotFound(persistedHash));
+        }
+        // registration: the hash must be the query's, or it would serve another query's document later
+        if (!persistedHash.equals(hash(input.getQuery()))) {
+            return new PreparsedDocumentEntry(error(new PersistedQueryIdInvalid(persistedHash), persistedHash, "PERSISTED_QUERY_HASH_MISMATCH"));
+        }
+        return getOrParse(persistedHash, input, parseAndValidate);
+    }
+
+    private PreparsedDocumentEntry getOrParse(String hash, ExecutionInput input, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        PreparsedDocumentEntry entry = documents.getIfPresent(hash);
+        if (entry == null) {
+            // two first requests may both parse; same result, no lock on the request path
+            entry = parseAndValidate.apply(input);
+            if (!entry.hasErrors()) {
+                documents.put(hash, entry);
+            }
+        }
+        return entry;
+    }
+
+    /** The document of a known persisted query hash, or {@code null}. */
+    public Document document(String hash) {
+        PreparsedDocumentEntry entry = documents.getIfPresent(hash);
+        return entry != null ? entry.getDocument() : null;
+    }
+
+    /** The query parsed, from the cache when it was seen before; {@code null} on a syntax error. */
+    public Document parse(String query) {
+        Document document = document(hash(query));
+        if (document != null) {
+            return document;
+        }
+        try {
+            return Parser.parse(query);
+        } catch (InvalidSyntaxException e) {
+            return null;
+        }
+    }
+
+    /** The error that makes clients resend the query text with its hash. */
+    public GraphQLError persistedQueryNotFound(String hash) {
+        persistedNotFound.increment();
+        return error(new PersistedQueryNotFound(hash), hash, "PERSISTED_QUERY_NOT_FOUND");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("graphql.documents.lookups", documents, cache -> cache.stats().hitCount())
+                .tag("result", "hit")
+                .description("Requests whose query document was already parsed and validated")
+                .register(registry);
+        FunctionCounter.builder("graphql.documents.lookups", documents, cache -> cache.stats().missCount())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("graphql.documents.persisted.not.found", persistedNotFound, LongAdder::sum)
+                .description("Persisted query hashes sent without text and unknown here; the client resends the query")
+                .register(registry);
+        Gauge.builder("graphql.documents.size", documents, Cache::estimatedSize).register(registry);
+    }
+
+    /** {@code extensions.persistedQuery.sha256Hash}, lower case, or {@code null} when the request has none. */
+    public static String persistedQueryHash(Map<String, Object> extensions) {
+        if (extensions != null && extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get("sha256Hash") instanceof String hash) {
+            return hash.toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    /** Hex SHA-256 of the query text, as clients compute persisted query hashes. */
+    public static String hash(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM", e);
+        }
+    }
+
+    private static GraphQLError error(PersistedQueryError error, String hash, String code) {
+        return GraphqlErrorBuilder.newError()
+                .errorType(error)
+                .message(error.getMessage())
+                .extensions(Map.of("code", code, "persistedQueryId", hash))
+                .build();
+    }
+}
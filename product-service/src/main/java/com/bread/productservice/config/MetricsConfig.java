@@ -0,0 +1,26 @@
+package com.bread.productservice.config;
+
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.cache.TwoTierCacheMetrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// HTTP requests and GraphQL data fetchers are timed by Boot itself; see management.* in application.yml
+@Configuration
+public class MetricsConfig {
+
+    // @Timed on the services: one products.service timer per class and method
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public TwoTierCacheMetrics twoTierCacheMetrics(TwoTierCacheManager cacheManager) {
+        return new TwoTierCacheMetrics(cacheManager);
+    }
+}
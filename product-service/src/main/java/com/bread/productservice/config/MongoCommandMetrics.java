@@ -0,0 +1,112 @@
+package com.bread.productservice.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every command the driver sends ({@code mongodb.commands}, tagged with command, collection
+ * and status) and records how many documents each one returned or wrote
+ * ({@code mongodb.commands.documents}): the batch size of a find/aggregate/getMore, {@code n} of
+ * an insert/update/delete/count. Replaces Boot's own command listener, which has no document counts.
+ */
+public class MongoCommandMetrics implements CommandListener {
+
+    private final MeterRegistry registry;
+    // collection of each running command: the succeeded/failed events only carry the request id
+    private final ConcurrentMap<Integer, String> collections = new ConcurrentHashMap<>();
+    // meters per tag combination, so the hot path skips the registry lookup
+    private final ConcurrentMap<Shape, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Shape, DistributionSummary> documents = new ConcurrentHashMap<>();
+
+    public MongoCommandMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String collection = collection(event.getCommandName(), event.getCommand());
+        if (collection != null) {
+            collections.put(event.getRequestId(), collection);
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Shape shape = new Shape(event.getCommandName(), collections.remove(event.getRequestId()), "SUCCESS");
+        timer(shape).record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        long count = documentCount(event.getResponse());
+        if (count >= 0) {
+            documents.computeIfAbsent(shape, s -> DistributionSummary.builder("mongodb.commands.documents")
+                    .tags("command", s.command(), "collection", s.collection(), "status", s.status())
+                    .description("Documents returned or written by one command")
+                    .publishPercentileHistogram()
+                    .register(registry)).record(count);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Shape shape = new Shape(event.getCommandName(), collections.remove(event.getRequestId()), "FAILED");
+        timer(shape).record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(Shape shape) {
+        return timers.computeIfAbsent(shape, s -> Timer.builder("mongodb.commands")
+                .tags("command", s.command(), "collection", s.collection(), "status", s.status())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    // {find: "products"}, {getMore: <cursor id>, collection: "products"}
+    static String collection(String commandName, BsonDocument command) {
+        BsonValue target = command.get(commandName);
+        if (target != null && target.isString()) {
+            return target.asString().getValue();
+        }
+        BsonValue collection = command.get("collection");
+        return collection != null && collection.isString() ? collection.asString().getValue() : null;
+    }
+
+    /** Documents in the reply's cursor batch, {@code n} of writes and counts, or -1 when the reply has neither. */
+    static long documentCount(BsonDocument response) {
+        if (response == null) {
+            return -1;
+        }
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue batch = cursor.asDocument().containsKey("firstBatch")
+                    ? cursor.asDocument().get("firstBatch") : cursor.asDocument().get("nextBatch");
+            return batch != null && batch.isArray() ? batch.asArray().size() : -1;
+        }
+        BsonValue n = response.get("n");
+        if (n != null && n.isNumber()) {
+            return n.asNumber().longValue();
+        }
+        // findAndModify
+        BsonValue value = response.get("value");
+        if (value != null) {
+            return value.isDocument() ? 1 : 0;
+        }
+        return -1;
+    }
+
+    private record Shape(String command, String collection, String status) {
+
+        Shape {
+            collection = collection != null ? collection : "unknown";
+        }
+    }
+}
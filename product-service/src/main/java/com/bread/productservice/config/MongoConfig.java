@@ -0,0 +1,35 @@
+package com.bread.productservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+
+    // connection pool of the sync and reactive clients; defaults are the driver's own
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(@Value("${products.mongo.pool.max-size:100}") int maxSize,
+                                                                    @Value("${products.mongo.pool.min-size:0}") int minSize,
+                                                                    @Value("${products.mongo.pool.max-connecting:2}") int maxConnecting,
+                                                                    @Value("${products.mongo.pool.max-wait:120s}") Duration maxWait) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+            .maxSize(maxSize)
+            .minSize(minSize)
+            .maxConnecting(maxConnecting)
+            .maxWaitTime(maxWait.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    // per-command latency and document counts, on the sync and reactive clients alike
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMetricsCustomizer(MeterRegistry registry) {
+        MongoCommandMetrics metrics = new MongoCommandMetrics(registry);
+        return builder -> builder.addCommandListener(metrics);
+    }
+}
@@ -0,0 +1,141 @@
+package com.bread.productservice.config;
+
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+import com.bread.productservice.service.ProductCursor;
+import com.bread.productservice.service.ProductQueries;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.FindIterable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs explain on every query shape the service issues against {@code products} and reports
+ * the ones whose winning plan is a COLLSCAN. Mode is {@code products.indexes.verify}:
+ * WARN (log only), FAIL (abort startup) or OFF.
+ */
+@Component
+public class ProductIndexVerifier {
+
+    public enum Mode { OFF, WARN, FAIL }
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIndexVerifier.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final Mode mode;
+
+    public ProductIndexVerifier(MongoTemplate mongoTemplate, @Value("${products.indexes.verify:WARN}") Mode mode) {
+        this.mongoTemplate = mongoTemplate;
+        this.mode = mode;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        List<String> collScans;
+        try {
+            collScans = findCollectionScans();
+        } catch (Exception e) {
+            log.warn("Could not verify query plans for products: {}", e.getMessage());
+            return;
+        }
+        if (collScans.isEmpty()) {
+            log.info("All {} products query shapes are served by an index", queryShapes().size());
+            return;
+        }
+        String message = "Query shapes resolved to COLLSCAN on products: " + collScans;
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    public List<String> findCollectionScans() {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Product.class);
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        List<String> collScans = new ArrayList<>();
+
+        queryShapes().forEach((name, query) -> {
+            FindIterable<Document> find = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                    .find(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                    .sort(queryMapper.getMappedSort(query.getSortObject(), entity))
+                    .limit(query.getLimit());
+            if (entity.hasCollation()) {
+                find = find.collation(entity.getCollation().toMongoCollation());
+            }
+            if (containsCollScan(find.explain())) {
+                collScans.add(name);
+            }
+        });
+        return collScans;
+    }
+
+    // one entry per filter + sort shape produced by ProductService and ProductRepository
+    static Map<String, Query> queryShapes() {
+        Sort byPrice = Sort.by(Sort.Direction.ASC, "price");
+        Map<String, Query> shapes = new LinkedHashMap<>();
+
+        shapes.put("all by price", new Query().with(byPrice).limit(10));
+        shapes.put("filter types", ProductQueries.filter(filter(List.of(ProductType.GLUTEN, ProductType.VEGAN), null, null, null, null)).with(byPrice).limit(10));
+        shapes.put("filter flavors", ProductQueries.filter(filter(null, List.of(Flavor.CHOCOLATE), null, null, null)).with(byPrice).limit(10));
+        shapes.put("filter onSale", ProductQueries.filter(filter(null, null, true, null, null)).with(byPrice).limit(10));
+        shapes.put("filter price", ProductQueries.filter(filter(null, null, null, 10.0, 50.0)).with(byPrice).limit(10));
+        shapes.put("filter types+flavors+price", ProductQueries.filter(filter(List.of(ProductType.KETO), List.of(Flavor.NUEZ), null, 10.0, 50.0)).with(byPrice).limit(10));
+        shapes.put("keyset", ProductQueries.keyset(null, new ProductCursor(25.0, "000000000000000000000000"), Sort.Direction.ASC, 11));
+        shapes.put("repository type", new Query(Criteria.where("type").is("GLUTEN")).limit(10));
+        shapes.put("repository flavor", new Query(Criteria.where("flavor").is("CHOCOLATE")).limit(10));
+        shapes.put("repository onSale", new Query(Criteria.where("onSale").is(true)).limit(10));
+        shapes.put("repository type+price", new Query(Criteria.where("type").is("GLUTEN").and("price").gt(10.0).lt(50.0)).limit(10));
+        shapes.put("repository flavor+price", new Query(Criteria.where("flavor").is("CHOCOLATE").and("price").gt(10.0).lt(50.0)).limit(10));
+        shapes.put("repository type+flavor+price", new Query(Criteria.where("type").is("GLUTEN").and("flavor").is("CHOCOLATE").and("price").gt(10.0).lt(50.0)).limit(10));
+        return shapes;
+    }
+
+    static boolean containsCollScan(Object node) {
+        if (node instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            Object planner = document.get("queryPlanner");
+            if (planner instanceof Document plannerDocument) {
+                return containsCollScan(plannerDocument.get("winningPlan"));
+            }
+            return document.values().stream().anyMatch(ProductIndexVerifier::containsCollScan);
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(ProductIndexVerifier::containsCollScan);
+        }
+        return false;
+    }
+
+    private static ProductFilterInput filter(List<ProductType> types, List<Flavor> flavors, Boolean onSale, Double priceFrom, Double priceTo) {
+        ProductFilterInput filter = new ProductFilterInput();
+        filter.setTypes(types);
+        filter.setFlavors(flavors);
+        filter.setOnSale(onSale);
+        filter.setPriceFrom(priceFrom);
+        filter.setPriceTo(priceTo);
+        return filter;
+    }
+}
@@ -0,0 +1,43 @@
+package com.bread.productservice.config;
+
+import com.bread.productservice.model.Product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Products written before {@code Product.version} existed have no version field, and Spring Data
+ * treats a null version as a new document (save() would insert a duplicate id). Sets version 0 on
+ * them once at startup; a no-op when every document already has one.
+ */
+@Component
+public class ProductVersionMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductVersionMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductVersionMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            long updated = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L), Product.class).getModifiedCount();
+            if (updated > 0) {
+                log.info("Initialized version on {} products", updated);
+            }
+        } catch (Exception e) {
+            log.warn("Could not initialize product versions: {}", e.getMessage());
+        }
+    }
+}
@@ -1,30 +1,140 @@
 package com.bread.productservice.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.bread.productservice.cache.CacheInvalidationBus;
+import com.bread.productservice.cache.CacheTtlPolicy;
+import com.bread.productservice.cache.CatalogKeyGenerator;
+import com.bread.productservice.cache.LoadProtection;
+import com.bread.productservice.cache.ProductCacheCodec;
+import com.bread.productservice.cache.RedisCacheInvalidationBus;
+import com.bread.productservice.cache.RedisCacheMultiGet;
+import com.bread.productservice.cache.RedisCatalogVersion;
+import com.bread.productservice.cache.RedisLoadLease;
+import com.bread.productservice.cache.TwoTierCacheManager;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 public class RedisConfig {
 
-    //redis cache to JSON
+    //redis cache values in the compact binary codec (JSON for anything it does not know), with an in-process near cache (L1) in front
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-    RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
-        .entryTtl(Duration.ofMinutes(10));
-
-    return RedisCacheManager.builder(redisConnectionFactory)
-        .cacheDefaults(redisCacheConfiguration)
-        .build();
-}
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                            CacheInvalidationBus cacheInvalidationBus,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            CacheTtlPolicy cacheTtlPolicy,
+                                            @Value("${cache.near.maximum-size:10000}") long nearMaximumSize,
+                                            @Value("${cache.near.ttl:60s}") Duration nearTtl,
+                                            @Value("${cache.codec.format:binary}") String codecFormat,
+                                            @Value("${cache.codec.compression-threshold:1024}") int compressionThreshold,
+                                            @Value("${cache.load.lease-ttl:5s}") Duration leaseTtl,
+                                            @Value("${cache.load.lease-wait:1s}") Duration leaseWait,
+                                            @Value("${cache.load.refresh-beta:1.0}") double refreshBeta,
+                                            @Value("${cache.load.refresh-threads:2}") int refreshThreads,
+                                            @Value("${cache.load.refresh-queue:100}") int refreshQueue) {
+        ProductCacheCodec codec = new ProductCacheCodec(new GenericJackson2JsonRedisSerializer(),
+            codecFormat.equalsIgnoreCase("binary"), compressionThreshold);
+        RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(codec))
+            .entryTtl(cacheTtlPolicy.ttlFunction("default"));
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        for (String cacheName : cacheTtlPolicy.configuredCacheNames()) {
+            perCache.put(cacheName, redisCacheConfiguration.entryTtl(cacheTtlPolicy.ttlFunction(cacheName)));
+        }
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+            .cacheDefaults(redisCacheConfiguration)
+            .withInitialCacheConfigurations(perCache)
+            .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // one node loads a missing key, the others wait for it in Redis; hot keys are reloaded before they expire
+        String nodeId = UUID.randomUUID().toString();
+        // bounded: past the queue a refresh is rejected and the entry just expires as usual
+        ThreadPoolTaskExecutor refreshExecutor = new ThreadPoolTaskExecutor();
+        refreshExecutor.setThreadNamePrefix("cache-refresh-");
+        refreshExecutor.setCorePoolSize(refreshThreads);
+        refreshExecutor.setMaxPoolSize(refreshThreads);
+        refreshExecutor.setQueueCapacity(refreshQueue);
+        refreshExecutor.setAllowCoreThreadTimeOut(true);
+        refreshExecutor.setDaemon(true);
+        refreshExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        refreshExecutor.initialize();
+        LoadProtection protection = new LoadProtection(new RedisLoadLease(stringRedisTemplate, nodeId, leaseTtl), leaseWait,
+            cacheTtlPolicy::ttl, refreshBeta, refreshExecutor);
 
-}
\ No newline at end of file
+        return new TwoTierCacheManager(redisCacheManager, new RedisCacheMultiGet(redisConnectionFactory),
+            cacheInvalidationBus, nearMaximumSize, nearTtl, protection, nodeId);
+    }
+
+    // cache.ttl.<cache-name> (kebab case) with cache.ttl.default for the rest
+    @Bean
+    public CacheTtlPolicy cacheTtlPolicy(Environment environment,
+                                         @Value("${cache.ttl-jitter:0.2}") double jitter) {
+        Map<String, Duration> ttls = new HashMap<>(Binder.get(environment)
+            .bind("cache.ttl", Bindable.mapOf(String.class, Duration.class))
+            .orElse(Map.of()));
+        Duration defaultTtl = ttls.getOrDefault("default", Duration.ofMinutes(10));
+        ttls.remove("default");
+        return new CacheTtlPolicy(defaultTtl, ttls, jitter);
+    }
+
+    // pub/sub channel used to drop near cache entries on the other nodes
+    @Bean
+    public RedisCacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                                          @Value("${cache.near.channel:cache-invalidation}") String channel) {
+        return new RedisCacheInvalidationBus(stringRedisTemplate, channel);
+    }
+
+    // version embedded in list/page/filter cache keys, bumped by every mutation
+    @Bean
+    public RedisCatalogVersion catalogVersion(StringRedisTemplate stringRedisTemplate,
+                                              @Value("${cache.catalog-version.key:catalog:version}") String key,
+                                              @Value("${cache.catalog-version.channel:catalog-version}") String channel,
+                                              @Value("${cache.catalog-version.resync-interval:5s}") Duration resyncInterval,
+                                              @Value("${cache.catalog-version.claim-ttl:10m}") Duration claimTtl) {
+        return new RedisCatalogVersion(stringRedisTemplate, key, channel, resyncInterval, claimTtl);
+    }
+
+    @Bean
+    public CatalogKeyGenerator catalogKeyGenerator(RedisCatalogVersion catalogVersion) {
+        return new CatalogKeyGenerator(catalogVersion);
+    }
+
+    // lists and pages of whole products: keyed on the revision, like their ETags
+    @Bean
+    public CatalogKeyGenerator revisionKeyGenerator(RedisCatalogVersion catalogVersion) {
+        return CatalogKeyGenerator.byRevision(catalogVersion);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       RedisCacheInvalidationBus cacheInvalidationBus,
+                                                                       RedisCatalogVersion catalogVersion) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(cacheInvalidationBus.getChannel()));
+        container.addMessageListener(catalogVersion, new ChannelTopic(catalogVersion.getChannel()));
+        return container;
+    }
+
+}
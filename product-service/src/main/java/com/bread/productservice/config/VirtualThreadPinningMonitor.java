@@ -0,0 +1,98 @@
+package com.bread.productservice.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process and logs every pin longer
+ * than {@code products.virtual-threads.pinning-threshold}, with the frame in our code that held
+ * the carrier (usually a synchronized block around blocking I/O). Only on Java 21+.
+ * The count is published as {@code jvm.threads.virtual.pinned}.
+ * For ad-hoc runs {@code -Djdk.tracePinnedThreads=short} gives the same information on stdout.
+ */
+@Component
+@Profile("virtual-threads")
+public class VirtualThreadPinningMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Duration threshold;
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${products.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jvm.threads.virtual.pinned", pinnedCount, AtomicLong::get)
+                .description("Virtual threads that pinned their carrier longer than the threshold")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("virtual-threads profile is active on Java {}; virtual threads and pinning detection need Java 21",
+                    Runtime.version().feature());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        log.warn("Virtual thread pinned its carrier for {} ms at {}", event.getDuration().toMillis(), culprit(event));
+    }
+
+    // first frame in our own packages, falling back to the top of the stack
+    private static String culprit(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame top = event.getStackTrace().getFrames().get(0);
+        return event.getStackTrace().getFrames().stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith("com.bread."))
+                .findFirst()
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse(describe(top));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -2,8 +2,14 @@ package com.bread.productservice.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.servlet.config.annotation.*;
 
+import reactor.core.scheduler.Schedulers;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -20,4 +26,26 @@ public class WebConfig implements WebMvcConfigurer {
             }
         };
     }
+
+    // same CORS rules when the "reactive" profile runs the app on WebFlux, and blocking handlers kept off the event loop
+    @Bean
+    @Profile("reactive")
+    public WebFluxConfigurer reactiveCorsConfigurer() {
+        return new WebFluxConfigurer() {
+            @Override
+            public void addCorsMappings(org.springframework.web.reactive.config.CorsRegistry registry) {
+                registry.addMapping("/graphql")
+                        .allowedOrigins("http://localhost:5173")
+                        .allowedMethods("GET", "POST")
+                        .allowedHeaders("*")
+                        .allowCredentials(true);
+            }
+
+            // the REST controllers call blocking services: their methods run on boundedElastic, not the event loop
+            @Override
+            public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+                configurer.setExecutor(new TaskExecutorAdapter(task -> Schedulers.boundedElastic().schedule(task)));
+            }
+        };
+    }
 }
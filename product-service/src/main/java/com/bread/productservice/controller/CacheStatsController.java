@@ -0,0 +1,26 @@
+package com.bread.productservice.controller;
+
+import com.bread.productservice.cache.TwoTierCacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+
+    private final TwoTierCacheManager cacheManager;
+
+    public CacheStatsController(TwoTierCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // per-tier hit/miss counters for every cache used since startup
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getStats() {
+        return ResponseEntity.ok(cacheManager.getStats());
+    }
+}
@@ -0,0 +1,153 @@
+package com.bread.productservice.controller;
+
+import com.bread.productservice.config.GraphQlDocumentCache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.graphql.server.WebGraphQlHandler;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The GraphQL HTTP endpoint with automatic persisted queries: a request may send
+ * {@code extensions.persistedQuery.sha256Hash} without the query once the hash is registered (see
+ * {@link GraphQlDocumentCache}). Both methods run through the same {@link WebGraphQlHandler} as
+ * Boot's own handler, so interceptors and instrumentation apply unchanged.
+ *
+ * <p>{@code GET /graphql} takes {@code query}, {@code operationName} and JSON {@code variables} and
+ * {@code extensions} as parameters (GraphQL over HTTP), so browsers and edge caches can keep and
+ * revalidate the results; a persisted hash keeps those URLs short. Results carry the catalog
+ * revision as ETag, and a matching {@code If-None-Match} is answered with a 304 before anything is
+ * executed. Mutations stay POST only.
+ *
+ * <p>Servlet stack only: on WebFlux Boot's GraphQL route answers before controllers, so the
+ * reactive profile keeps Boot's handler (the document cache still applies, and a hash is still
+ * accepted next to its query).
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class GraphQlHttpController {
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() { };
+
+    private final WebGraphQlHandler graphQlHandler;
+    private final GraphQlDocumentCache documentCache;
+    private final ProductEtags productEtags;
+    private final ObjectMapper objectMapper;
+
+    public GraphQlHttpController(WebGraphQlHandler graphQlHandler, GraphQlDocumentCache documentCache,
+                                 ProductEtags productEtags, ObjectMapper objectMapper) {
+        this.graphQlHandler = graphQlHandler;
+        this.documentCache = documentCache;
+        this.productEtags = productEtags;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(value = "${spring.graphql.path:/graphql}", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = { MediaType.APPLICATION_GRAPHQL_RESPONSE_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Mono<ResponseEntity<Map<String, Object>>> post(@RequestBody Map<String, Object> body,
+                                                          @RequestHeader HttpHeaders headers,
+                                                          HttpServletRequest servletRequest, Locale locale) {
+        return execute(body, headers, servletRequest, locale)
+                .map(response -> ResponseEntity.ok().headers(response.getResponseHeaders()).body(response.toMap()));
+    }
+
+    @GetMapping(value = "${spring.graphql.path:/graphql}",
+            produces = { MediaType.APPLICATION_GRAPHQL_RESPONSE_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Mono<ResponseEntity<Map<String, Object>>> get(@RequestParam(required = false) String query,
+                                                         @RequestParam(required = false) String operationName,
+                                                         @RequestParam(required = false) String variables,
+                                                         @RequestParam(required = false) String extensions,
+                                                         @RequestHeader HttpHeaders headers,
+                                                         HttpServletRequest servletRequest, Locale locale) {
+        String etag = productEtags.catalog();
+        if (ProductEtags.matches(headers.getFirst(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(productEtags.cacheControl()).build());
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", query);
+        body.put("operationName", operationName);
+        try {
+            body.put("variables", variables != null ? objectMapper.readValue(variables, JSON_OBJECT) : null);
+            body.put("extensions", extensions != null ? objectMapper.readValue(extensions, JSON_OBJECT) : null);
+        } catch (JsonProcessingException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        String persistedHash = GraphQlDocumentCache.persistedQueryHash(extensionsOf(body));
+        Document document;
+        if (StringUtils.hasText(query) && !query.equals(GraphQlDocumentCache.PERSISTED_QUERY_MARKER)) {
+            document = documentCache.parse(query);
+        } else if (persistedHash != null) {
+            // looked up once: a document registered after this check must not run unchecked
+            document = documentCache.document(persistedHash);
+            if (document == null) {
+                return Mono.just(ResponseEntity.ok(Map.of("errors", List.of(documentCache.persistedQueryNotFound(persistedHash).toSpecification()))));
+            }
+        } else {
+            document = null;
+        }
+        // unparsable documents go on, so execution reports the syntax error as usual
+        if (document != null && !isQuery(document, operationName)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).allow(HttpMethod.POST).build());
+        }
+        return execute(body, headers, servletRequest, locale).map(response -> {
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok().headers(response.getResponseHeaders());
+            // errors may be transient (a timeout, Mongo down): not worth keeping
+            if (response.getErrors().isEmpty()) {
+                ok.eTag(etag).cacheControl(productEtags.cacheControl());
+            }
+            return ok.body(response.toMap());
+        });
+    }
+
+    // a hash without the query runs the registered document
+    private Mono<WebGraphQlResponse> execute(Map<String, Object> body, HttpHeaders headers, HttpServletRequest servletRequest, Locale locale) {
+        if (!(body.get("query") instanceof String query && StringUtils.hasText(query)) && GraphQlDocumentCache.persistedQueryHash(extensionsOf(body)) != null) {
+            body.put("query", GraphQlDocumentCache.PERSISTED_QUERY_MARKER);
+        }
+        WebGraphQlRequest request = new WebGraphQlRequest(ServletUriComponentsBuilder.fromRequest(servletRequest).build().toUri(),
+                headers, new LinkedMultiValueMap<>(), new HashMap<>(), body, servletRequest.getRequestId(), locale);
+        return graphQlHandler.handleRequest(request);
+    }
+
+    // the operation that would run is a query
+    static boolean isQuery(Document document, String operationName) {
+        return document.getDefinitionsOfType(OperationDefinition.class).stream()
+                .filter(operation -> operationName == null || operationName.equals(operation.getName()))
+                .allMatch(operation -> operation.getOperation() == OperationDefinition.Operation.QUERY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> extensionsOf(Map<String, Object> body) {
+        return body.get("extensions") instanceof Map<?, ?> extensions ? (Map<String, Object>) extensions : null;
+    }
+}
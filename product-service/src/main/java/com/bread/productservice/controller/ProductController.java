@@ -1,34 +1,69 @@
 package com.bread.productservice.controller;
 
+import com.bread.productservice.dto.BulkResultDTO;
+import com.bread.productservice.dto.ProductInputDTO;
+import com.bread.productservice.dto.ProductUpsertDTO;
+import com.bread.productservice.dto.StockItemDTO;
+import com.bread.productservice.dto.StockReservationDTO;
+import com.bread.productservice.exception.InsufficientStockException;
+import com.bread.productservice.exception.InvalidRequestException;
 import com.bread.productservice.model.Product;
+import com.bread.productservice.service.ProductBulkService;
 import com.bread.productservice.service.ProductService;
+import com.bread.productservice.service.ProductStockService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductStockService productStockService;
+    private final ProductEtags productEtags;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductBulkService productBulkService,
+                             ProductStockService productStockService, ProductEtags productEtags) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
+        this.productStockService = productStockService;
+        this.productEtags = productEtags;
     }
 
+    // conditional GETs are answered from the catalog revision / known product version, before any cache or Mongo read
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<List<Product>> getAllProducts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = productEtags.catalog();
+        if (ProductEtags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(productEtags.cacheControl()).body(productService.getAllProducts());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
+    public ResponseEntity<Product> getProductById(@PathVariable String id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String known = productEtags.knownProduct(id);
+        if (ProductEtags.matches(ifNoneMatch, known)) {
+            return notModified(known);
+        }
         return productService.getProductById(id)
-            .map(ResponseEntity::ok)
+            .map(product -> ResponseEntity.ok().eTag(productEtags.product(product)).cacheControl(productEtags.cacheControl()).body(product))
             .orElse(ResponseEntity.notFound().build());
     }
 
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(productEtags.cacheControl()).build();
+    }
+
     @PostMapping
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
         return ResponseEntity.ok(productService.createProduct(product));
@@ -39,9 +74,63 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(id, updatedProduct));
     }
 
+    // JSON merge patch: only the fields in the body are written, null removes an optional field
+    @PatchMapping(value = "/{id}", consumes = { "application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<Product> patchProduct(@PathVariable String id, @RequestBody Map<String, Object> fields) {
+        return ResponseEntity.ok(productService.patchProduct(id, fields));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+
+    // bulk endpoints answer 200 with per-item errors; only an oversized batch is rejected
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResultDTO> createProducts(@RequestBody List<ProductInputDTO> inputs) {
+        return ResponseEntity.ok(productBulkService.createProducts(inputs));
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkResultDTO> upsertProducts(@RequestBody List<ProductUpsertDTO> items) {
+        return ResponseEntity.ok(productBulkService.upsertProducts(items));
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkResultDTO> deleteProducts(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(productBulkService.deleteProducts(ids));
+    }
+
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<Product> reserveStock(@PathVariable String id, @RequestParam int quantity) {
+        return ResponseEntity.ok(productStockService.reserveStock(id, quantity));
+    }
+
+    @PostMapping("/{id}/release")
+    public ResponseEntity<Product> releaseStock(@PathVariable String id, @RequestParam int quantity) {
+        return ResponseEntity.ok(productStockService.releaseStock(id, quantity));
+    }
+
+    // 200 with reserved=false when a line cannot be served, like the GraphQL mutation
+    @PostMapping("/reservations")
+    public ResponseEntity<StockReservationDTO> reserveStockBatch(@RequestBody List<StockItemDTO> items) {
+        return ResponseEntity.ok(productStockService.reserveStockBatch(items));
+    }
+
+    @PostMapping("/reservations/release")
+    public ResponseEntity<List<Product>> releaseStockBatch(@RequestBody List<StockItemDTO> items) {
+        return ResponseEntity.ok(productStockService.releaseStockBatch(items));
+    }
+
+    // not enough stock, or the version sent with an update is no longer current
+    @ExceptionHandler({ InsufficientStockException.class, OptimisticLockingFailureException.class })
+    public ResponseEntity<String> handleConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleBadRequest(InvalidRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 }
@@ -0,0 +1,108 @@
+package com.bread.productservice.controller;
+
+import com.bread.productservice.cache.CacheTtlPolicy;
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.model.Product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Strong ETags for product reads, answerable without loading anything: a single product is
+ * tagged with its version, lists and GraphQL GET results with the catalog revision. The last
+ * version of each product this node has seen is kept from {@link ProductChangedEvent}s (which
+ * every node receives) and from the products it served; a product it has not seen yet takes the
+ * normal path, and Spring still turns a matching response into a 304 there. Cached lists and pages
+ * are keyed on the same revision (see {@code CatalogKeyGenerator#byRevision}), so one tag never
+ * stands for two bodies.
+ *
+ * <p>Another node's write reaches this index with the same delay as its L1 cache invalidation. A
+ * write made outside the service only reaches it through the change stream, so entries expire
+ * with the {@code product_by_id} TTL: without the stream the tag is never staler than the cached
+ * product it stands for.
+ */
+@Component
+public class ProductEtags {
+
+    private final CatalogVersion catalogVersion;
+    private final CacheControl cacheControl;
+    // product id -> highest version seen
+    private final Cache<String, Long> versions;
+
+    public ProductEtags(CatalogVersion catalogVersion,
+                        @Value("${products.http.max-age:0s}") Duration maxAge,
+                        @Value("${products.http.etag-index-size:100000}") long indexSize,
+                        CacheTtlPolicy cacheTtlPolicy) {
+        this.catalogVersion = catalogVersion;
+        // 0: shared caches may store responses but revalidate every time, which the ETag makes cheap
+        this.cacheControl = maxAge.isZero() ? CacheControl.noCache().cachePublic() : CacheControl.maxAge(maxAge).cachePublic();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(indexSize)
+                .expireAfterWrite(cacheTtlPolicy.ttl("product_by_id"))
+                .build();
+    }
+
+    public CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    /** ETag of list and query results; read it before running the query, so a concurrent write can only make it older. */
+    public String catalog() {
+        return "\"r" + catalogVersion.revision() + "\"";
+    }
+
+    /** ETag of the product as served, or {@code null} for a product without a version. */
+    public String product(Product product) {
+        if (product.getVersion() == null) {
+            return null;
+        }
+        seen(product.getId(), product.getVersion());
+        return productEtag(product.getVersion());
+    }
+
+    /** ETag of the product's last version seen on this node, or {@code null} when unknown. */
+    public String knownProduct(String id) {
+        Long version = versions.getIfPresent(id);
+        return version != null ? productEtag(version) : null;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            versions.invalidate(event.productId());
+        } else if (event.product().getVersion() != null) {
+            seen(event.productId(), event.product().getVersion());
+        }
+    }
+
+    // a read that loaded an older copy must not move the index back
+    private void seen(String id, long version) {
+        versions.asMap().merge(id, version, Math::max);
+    }
+
+    private static String productEtag(long version) {
+        return "\"v" + version + "\"";
+    }
+
+    /** If-None-Match against one of our ETags: weak comparison, lists and {@code *} included (RFC 9110, 13.1.2). */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,68 +1,143 @@
 package com.bread.productservice.controller;
 
+import com.bread.productservice.dto.BulkResultDTO;
 import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductConnectionDTO;
+import com.bread.productservice.dto.ProductFacetsDTO;
 import com.bread.productservice.dto.ProductInputDTO;
 import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.dto.ProductUpsertDTO;
+import com.bread.productservice.dto.StockItemDTO;
+import com.bread.productservice.dto.StockReservationDTO;
+import com.bread.productservice.exception.InvalidRequestException;
 import com.bread.productservice.model.Product;
+import com.bread.productservice.service.ProductBulkService;
+import com.bread.productservice.service.ProductStockService;
+import com.bread.productservice.service.ProductProjection;
 import com.bread.productservice.service.ProductService;
+import com.bread.productservice.service.ReactiveProductService;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Controller
 public class ProductGraphQLController {
 
+    private static final int MAX_CONNECTION_SIZE = 100;
+    private static final int MAX_IDS = 100;
+
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductStockService productStockService;
+    private final ReactiveProductService reactiveProductService; // only with the "reactive" profile
 
-    public ProductGraphQLController(ProductService productService) {
+    public ProductGraphQLController(ProductService productService, ProductBulkService productBulkService,
+                                    ProductStockService productStockService, ObjectProvider<ReactiveProductService> reactiveProductService,
+                                    BatchLoaderRegistry batchLoaderRegistry) {
         this.productService = productService;
+        this.productBulkService = productBulkService;
+        this.productStockService = productStockService;
+        this.reactiveProductService = reactiveProductService.getIfAvailable();
+        // every product-by-id lookup in one request is collected and resolved in a single batch
+        batchLoaderRegistry.forTypePair(String.class, Product.class)
+                .registerMappedBatchLoader((ids, env) -> this.reactiveProductService != null
+                        ? this.reactiveProductService.getProductsByIds(ids)
+                        : Mono.fromSupplier(() -> productService.getProductsByIds(ids)));
     }
 
     @QueryMapping
-    public PagedResponseDTO<Product> getAllProducts(
+    public Mono<PagedResponseDTO<Product>> getAllProducts(
             @Argument Integer page,
             @Argument Integer size,
-            @Argument String sort
+            @Argument String sort,
+            DataFetchingFieldSelectionSet selection
     ) {
         int pageNumber = (page != null) ? page : 0;
         int pageSize = (size != null) ? size : 10;
+        requireValidPage(pageNumber, pageSize);
         String sortDirection = (sort != null && sort.equalsIgnoreCase("DESC")) ? "DESC" : "ASC";
-        log.info("Fetching all products. Page: {}, Size: {}, Sort: {}", pageNumber, pageSize, sortDirection);
-        return productService.getAllProductsPagedSorted(pageNumber, pageSize, sortDirection);
+        log.debug("Fetching all products. Page: {}, Size: {}, Sort: {}", pageNumber, pageSize, sortDirection);
+        ProductProjection projection = projection(selection.getFields("content/*"));
+        if (reactiveProductService != null) {
+            return reactiveProductService.getAllProductsPagedSorted(pageNumber, pageSize, sortDirection, projection);
+        }
+        return Mono.fromSupplier(() -> productService.getAllProductsPagedSorted(pageNumber, pageSize, sortDirection, projection));
     }
 
     @QueryMapping
-    public PagedResponseDTO<Product> getFilteredProducts(
+    public Mono<PagedResponseDTO<Product>> getFilteredProducts(
             @Argument ProductFilterInput filter,
             @Argument Integer page,
             @Argument Integer size,
-            @Argument String sort) {
+            @Argument String sort,
+            @Argument Boolean includeTotals,
+            DataFetchingFieldSelectionSet selection) {
         int pageNumber = (page != null) ? page : 0;
         int pageSize = (size != null) ? size : 10;
-        log.info("Filtering products with filter: {}, Page: {}, Size: {}, Sort: {}", filter, pageNumber, pageSize, sort);
+        requireValidPage(pageNumber, pageSize);
+        boolean totals = includeTotals == null || includeTotals;
+        log.debug("Filtering products with filter: {}, Page: {}, Size: {}, Sort: {}, Totals: {}", filter, pageNumber, pageSize, sort, totals);
         String sortDirection = (sort != null && sort.equalsIgnoreCase("DESC")) ? "DESC" : "ASC";
-        if (filter == null) {
-            return productService.getAllProductsPagedSorted(pageNumber, pageSize, sortDirection);
+        ProductProjection projection = projection(selection.getFields("content/*"));
+        if (reactiveProductService != null) {
+            return filter == null && totals
+                    ? reactiveProductService.getAllProductsPagedSorted(pageNumber, pageSize, sortDirection, projection)
+                    : reactiveProductService.getFilteredProducts(filter, pageNumber, pageSize, sortDirection, totals, projection);
+        }
+        if (filter == null && totals) {
+            return Mono.fromSupplier(() -> productService.getAllProductsPagedSorted(pageNumber, pageSize, sortDirection, projection));
         }
-        return productService.getFilteredProducts(filter, pageNumber, pageSize, sortDirection);
+        return Mono.fromSupplier(() -> productService.getFilteredProducts(filter, pageNumber, pageSize, sortDirection, totals, projection));
+    }
+
+    @QueryMapping
+    public Mono<ProductConnectionDTO> getProductsConnection(
+            @Argument ProductFilterInput filter,
+            @Argument Integer first,
+            @Argument String after,
+            @Argument String sort) {
+        int pageSize = (first != null) ? Math.min(Math.max(first, 1), MAX_CONNECTION_SIZE) : 10;
+        String sortDirection = (sort != null && sort.equalsIgnoreCase("DESC")) ? "DESC" : "ASC";
+        log.debug("Fetching products connection with filter: {}, first: {}, after: {}, sort: {}", filter, pageSize, after, sortDirection);
+        return blocking(() -> productService.getProductsConnection(filter, pageSize, after, sortDirection));
+    }
+
+    @QueryMapping
+    public CompletableFuture<Product> getProductById(@Argument String id, DataLoader<String, Product> productLoader) {
+        log.debug("Fetching product by ID: {}", id);
+        return productLoader.load(id);
     }
 
     @QueryMapping
-    public Optional<Product> getProductById(@Argument String id) {
-        log.info("Fetching product by ID: {}", id);
-        return productService.getProductById(id);
+    public CompletableFuture<List<Product>> getProductsByIds(@Argument List<String> ids, DataLoader<String, Product> productLoader) {
+        if (ids.size() > MAX_IDS) {
+            throw new InvalidRequestException("getProductsByIds accepts at most " + MAX_IDS + " ids");
+        }
+        log.debug("Fetching {} products by ID", ids.size());
+        return productLoader.loadMany(ids);
     }
 
     @MutationMapping
-    public Product createProduct(@Argument @Valid ProductInputDTO input) {
+    public Mono<Product> createProduct(@Argument @Valid ProductInputDTO input) {
         log.info("Creating product: {}", input.getName());
         Product newProduct = new Product();
         newProduct.setName(input.getName());
@@ -74,11 +149,11 @@ public class ProductGraphQLController {
         newProduct.setFlavor(input.getFlavor());
         newProduct.setOnSale(input.isOnSale());
         newProduct.setDiscountPercentage(input.getDiscountPercentage());
-        return productService.createProduct(newProduct);
+        return blocking(() -> productService.createProduct(newProduct));
     }
 
     @MutationMapping
-    public Product updateProduct(@Argument String id, @Argument @Valid ProductInputDTO input) {
+    public Mono<Product> updateProduct(@Argument String id, @Argument @Valid ProductInputDTO input) {
         log.info("Updating product with ID: {}", id);
         Product updatedProduct = new Product();
         updatedProduct.setName(input.getName());
@@ -90,29 +165,88 @@ public class ProductGraphQLController {
         updatedProduct.setFlavor(input.getFlavor());
         updatedProduct.setOnSale(input.isOnSale());
         updatedProduct.setDiscountPercentage(input.getDiscountPercentage());
-        return productService.updateProduct(id, updatedProduct);
+        return blocking(() -> productService.updateProduct(id, updatedProduct));
     }
 
+    // raw map on purpose: an explicit null must stay distinguishable from a field that was not sent
     @MutationMapping
-    public Boolean deleteProduct(@Argument String id) {
+    public Mono<Product> patchProduct(@Argument String id, @Argument Map<String, Object> input) {
+        log.info("Patching product with ID: {} fields: {}", id, input.keySet());
+        return blocking(() -> productService.patchProduct(id, input));
+    }
+
+    @MutationMapping
+    public Mono<Boolean> deleteProduct(@Argument String id) {
         log.warn("Deleting product with ID: {}", id);
-        productService.deleteProduct(id);
-        return true;
+        return blocking(() -> {
+            productService.deleteProduct(id);
+            return true;
+        });
+    }
+
+    // no @Valid here: invalid items are reported per item instead of failing the whole batch
+    @MutationMapping
+    public Mono<BulkResultDTO> createProducts(@Argument List<ProductInputDTO> inputs) {
+        log.info("Bulk creating {} products", inputs.size());
+        return blocking(() -> productBulkService.createProducts(inputs));
+    }
+
+    @MutationMapping
+    public Mono<BulkResultDTO> upsertProducts(@Argument List<ProductUpsertDTO> items) {
+        log.info("Bulk upserting {} products", items.size());
+        return blocking(() -> productBulkService.upsertProducts(items));
+    }
+
+    @MutationMapping
+    public Mono<BulkResultDTO> deleteProducts(@Argument List<String> ids) {
+        log.warn("Bulk deleting {} products", ids.size());
+        return blocking(() -> productBulkService.deleteProducts(ids));
+    }
+
+    @MutationMapping
+    public Mono<Product> reserveStock(@Argument String id, @Argument int quantity) {
+        return blocking(() -> productStockService.reserveStock(id, quantity));
+    }
+
+    @MutationMapping
+    public Mono<Product> releaseStock(@Argument String id, @Argument int quantity) {
+        return blocking(() -> productStockService.releaseStock(id, quantity));
+    }
+
+    @MutationMapping
+    public Mono<StockReservationDTO> reserveStockBatch(@Argument List<StockItemDTO> items) {
+        return blocking(() -> productStockService.reserveStockBatch(items));
+    }
+
+    @MutationMapping
+    public Mono<List<Product>> releaseStockBatch(@Argument List<StockItemDTO> items) {
+        return blocking(() -> productStockService.releaseStockBatch(items));
     }
 
     @QueryMapping
-    public List<Product> searchProductsByName(
+    public Mono<List<Product>> searchProductsByName(
             @Argument String name,
             @Argument Integer page,
-            @Argument Integer size) {
+            @Argument Integer size,
+            DataFetchingFieldSelectionSet selection) {
         int pageNumber = (page != null) ? page : 0;
         int pageSize = (size != null) ? size : 10;
-        log.info("Searching products by name: '{}', page: {}, size: {}", name, page, size);
-        return productService.searchProductsByName(name, pageNumber, pageSize);
+        log.debug("Searching products by name: '{}', page: {}, size: {}", name, page, size);
+        ProductProjection projection = projection(selection.getImmediateFields());
+        if (reactiveProductService != null) {
+            return reactiveProductService.searchProductsByName(name, pageNumber, pageSize, projection);
+        }
+        return Mono.fromSupplier(() -> productService.searchProductsByName(name, pageNumber, pageSize, projection));
+    }
+
+    @QueryMapping
+    public Mono<List<Product>> autocomplete(@Argument String prefix, @Argument Integer limit) {
+        int maxResults = (limit != null) ? Math.min(Math.max(limit, 1), 50) : 10;
+        return blocking(() -> productService.autocomplete(prefix, maxResults));
     }
 
     @QueryMapping
-    public List<Product> filterProducts(
+    public Mono<List<Product>> filterProducts(
             @Argument String type,
             @Argument Float priceFrom,
             @Argument Float priceTo,
@@ -120,20 +254,43 @@ public class ProductGraphQLController {
             @Argument Integer size) {
         int pageNumber = (page != null) ? page : 0;
         int pageSize = (size != null) ? size : 10;
-        log.info("Filtering products by type: {}, priceFrom: {}, priceTo: {}", type, priceFrom, priceTo);
-        return productService.filterProducts(type, priceFrom != null ? priceFrom.doubleValue() : null,
+        log.debug("Filtering products by type: {}, priceFrom: {}, priceTo: {}", type, priceFrom, priceTo);
+        return blocking(() -> productService.filterProducts(type, priceFrom != null ? priceFrom.doubleValue() : null,
                 priceTo != null ? priceTo.doubleValue() : null,
-                pageNumber, pageSize);
+                pageNumber, pageSize));
+    }
+
+    @QueryMapping
+    public Mono<ProductFacetsDTO> getFacets(@Argument ProductFilterInput filter) {
+        log.debug("Fetching facets for filter: {}", filter);
+        return blocking(() -> productService.getFacets(filter));
     }
 
     @QueryMapping
-    public List<String> getAvailableFlavors() {
-        return productService.getAvailableFlavors();
+    public Mono<List<String>> getAvailableFlavors() {
+        return blocking(productService::getAvailableFlavors);
     }
 
     @QueryMapping
-    public List<String> getAvailableTypes() {
-        return productService.getAvailableTypes();
+    public Mono<List<String>> getAvailableTypes() {
+        return blocking(productService::getAvailableTypes);
     }
 
+    // services without a reactive counterpart block: on the reactive stack they run on boundedElastic, never the event loop
+    private <T> Mono<T> blocking(Callable<T> call) {
+        Mono<T> result = Mono.fromCallable(call);
+        return reactiveProductService != null ? result.subscribeOn(Schedulers.boundedElastic()) : result;
+    }
+
+    // only the Product fields the client selected are read from Mongo
+    private static ProductProjection projection(List<SelectedField> selectedFields) {
+        return ProductProjection.of(selectedFields.stream().map(SelectedField::getName).toList());
+    }
+
+    // PageRequest rejects these too, but as an IllegalArgumentException, which is an internal error
+    private static void requireValidPage(int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new InvalidRequestException("page must be 0 or more and size at least 1");
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package com.bread.productservice.controller;
+
+import com.bread.productservice.dto.ImportResultDTO;
+import com.bread.productservice.service.ProductBulkService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// NDJSON export/import of the whole catalog; servlet stack only (not with the "reactive" profile)
+@Slf4j
+@RestController
+@RequestMapping("/api/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductStreamController {
+
+    private final ProductBulkService productBulkService;
+
+    public ProductStreamController(ProductBulkService productBulkService) {
+        this.productBulkService = productBulkService;
+    }
+
+    // written straight to the response from a Mongo cursor, unlike GET /api/products which builds one list
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        log.info("Exporting catalog as NDJSON");
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(productBulkService::exportProducts);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResultDTO> importProducts(InputStream body) throws IOException {
+        log.info("Importing catalog from NDJSON");
+        return ResponseEntity.ok(productBulkService.importProducts(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+}
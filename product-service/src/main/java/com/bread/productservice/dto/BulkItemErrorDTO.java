@@ -0,0 +1,15 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemErrorDTO {
+
+    private int index; // position in the request
+    private String id;
+    private String message;
+}
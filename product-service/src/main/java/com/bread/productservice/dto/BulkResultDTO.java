@@ -0,0 +1,21 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResultDTO {
+
+    private int requested;
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private List<String> ids = new ArrayList<>(); // ids written or deleted, in request order
+    private List<BulkItemErrorDTO> errors = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetCountDTO {
+
+    private String value;
+    private long count;
+}
@@ -0,0 +1,21 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// result of an NDJSON import; error index is the line number (1-based) and only the first errors are kept
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResultDTO {
+
+    private long read;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<BulkItemErrorDTO> errors = new ArrayList<>();
+}
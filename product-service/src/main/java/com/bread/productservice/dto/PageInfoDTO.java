@@ -0,0 +1,16 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageInfoDTO {
+
+    private boolean hasNextPage;
+    private boolean hasPreviousPage; // true whenever an "after" cursor was given
+    private String startCursor;
+    private String endCursor;
+}
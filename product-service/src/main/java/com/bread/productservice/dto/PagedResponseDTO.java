@@ -14,7 +14,7 @@ public class PagedResponseDTO<T> {
     private List<T> content; // listItems current page
     private int pageNumber; // current page
     private int pageSize; // items per page
-    private long totalElements; // totalItems all pages
-    private int totalPages; // number of pages
+    private Long totalElements; // totalItems all pages, null when the client opted out of totals
+    private Integer totalPages; // number of pages, null when the client opted out of totals
     private boolean last; // isLastPage
 }
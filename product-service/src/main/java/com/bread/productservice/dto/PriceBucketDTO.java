@@ -0,0 +1,15 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBucketDTO {
+
+    private double from; // inclusive
+    private Double to;   // exclusive, null for the open-ended last bucket
+    private long count;
+}
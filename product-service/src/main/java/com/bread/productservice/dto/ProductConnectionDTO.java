@@ -0,0 +1,16 @@
+package com.bread.productservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductConnectionDTO {
+
+    private List<ProductEdgeDTO> edges;
+    private PageInfoDTO pageInfo;
+}
@@ -0,0 +1,16 @@
+package com.bread.productservice.dto;
+
+import com.bread.productservice.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductEdgeDTO {
+
+    private String cursor; // opaque position of this node
+    private Product node;
+}
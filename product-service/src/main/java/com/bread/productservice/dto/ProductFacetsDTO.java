@@ -0,0 +1,20 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFacetsDTO {
+
+    private long total;
+    private List<FacetCountDTO> types;
+    private List<FacetCountDTO> flavors;
+    private long onSale;
+    private long notOnSale;
+    private List<PriceBucketDTO> priceBuckets;
+}
@@ -3,6 +3,8 @@ package com.bread.productservice.dto;
 import com.bread.productservice.model.ProductType;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import com.bread.productservice.model.Flavor;
 
@@ -10,9 +12,29 @@ import lombok.Data;
 
 @Data
 public class ProductFilterInput {
-    private List<ProductType> types; 
-    private List<Flavor> flavors;    
+    private List<ProductType> types;
+    private List<Flavor> flavors;
     private Boolean onSale;
     private Double priceFrom;
     private Double priceTo;
+
+    // order and duplicates do not change the result, so they must not change the cache key either
+    public String toCacheKey() {
+        return "types=" + normalize(types)
+                + ";flavors=" + normalize(flavors)
+                + ";onSale=" + onSale
+                + ";price=" + (priceFrom != null && priceTo != null ? priceFrom + ".." + priceTo : "*");
+    }
+
+    private static String normalize(List<? extends Enum<?>> values) {
+        if (values == null || values.isEmpty()) {
+            return "*";
+        }
+        return values.stream()
+                .filter(Objects::nonNull)
+                .map(Enum::name)
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
 }
@@ -0,0 +1,15 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// item of upsertProducts: the product is replaced (or inserted) under this id
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductUpsertDTO {
+
+    private String id;
+    private ProductInputDTO input;
+}
@@ -0,0 +1,15 @@
+package com.bread.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one cart line of reserveStockBatch / releaseStockBatch
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockItemDTO {
+
+    private String productId;
+    private int quantity;
+}
@@ -0,0 +1,22 @@
+package com.bread.productservice.dto;
+
+import com.bread.productservice.model.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// all-or-nothing: when reserved is false nothing stays reserved and failedProductId says why
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockReservationDTO {
+
+    private boolean reserved;
+    private List<Product> products = new ArrayList<>(); // state after the reservation
+    private String failedProductId;
+    private String message;
+}
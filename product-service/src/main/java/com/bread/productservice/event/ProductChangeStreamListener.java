@@ -0,0 +1,340 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.cache.TwoTierCache;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.search.ProductSearchIndex;
+import com.bread.productservice.service.ProductQueries;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+
+import jakarta.annotation.PreDestroy;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the {@code products} change stream, so writes made by other services or straight in the
+ * database invalidate {@code product_by_id}, bump the catalog version and reach the in-memory read
+ * models just like writes made through this service. Every node runs its own stream and drops its
+ * own entries, so nothing is broadcast on the invalidation bus (it replaces
+ * {@link RemoteProductChangeRelay}). The resume token is checkpointed per node after every applied
+ * batch: a restart replays from there (at-least-once, every step is idempotent); if the oplog no
+ * longer holds that position the caches and read models are rebuilt instead. Without a token the
+ * stream starts at the cluster time read before the read models load (or reload), so no write
+ * falls between the load and the stream. Every node sees every change, so the shared catalog
+ * version is only advanced by the node that claims the change first (by resume token); the others
+ * pick the new value up from the catalog-version channel.
+ *
+ * <p>Needs a replica set or sharded cluster ({@code products.change-stream.enabled=true}).
+ */
+@Component
+@ConditionalOnProperty(name = "products.change-stream.enabled", havingValue = "true")
+public class ProductChangeStreamListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+    // ChangeStreamHistoryLost, ChangeStreamFatalError: the saved token can never be resumed
+    private static final Set<Integer> UNRESUMABLE = Set.of(286, 280);
+
+    private final MongoTemplate mongoTemplate;
+    private final ResumeTokenStore resumeTokenStore;
+    private final CacheManager cacheManager;
+    private final CatalogVersion catalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogEngine catalogEngine;
+    private final ProductSearchIndex productSearchIndex;
+    private final String tokenKey;
+    private final int batchSize;
+    private final Duration maxAwait;
+    private final Duration checkpointInterval;
+    private final Duration retryDelay;
+
+    private volatile boolean running;
+    private Thread worker;
+    private BsonDocument savedToken;
+    private long savedAtNanos;
+    private volatile BsonTimestamp startAt;
+
+    public ProductChangeStreamListener(MongoTemplate mongoTemplate, ResumeTokenStore resumeTokenStore, CacheManager cacheManager,
+                                       CatalogVersion catalogVersion, ApplicationEventPublisher eventPublisher,
+                                       CatalogEngine catalogEngine, ProductSearchIndex productSearchIndex,
+                                       @Value("${products.change-stream.name:products}") String streamName,
+                                       @Value("${products.change-stream.node-id:}") String nodeId,
+                                       @Value("${products.change-stream.batch-size:500}") int batchSize,
+                                       @Value("${products.change-stream.max-await:1s}") Duration maxAwait,
+                                       @Value("${products.change-stream.checkpoint-interval:10s}") Duration checkpointInterval,
+                                       @Value("${products.change-stream.retry-delay:5s}") Duration retryDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.resumeTokenStore = resumeTokenStore;
+        this.cacheManager = cacheManager;
+        this.catalogVersion = catalogVersion;
+        this.eventPublisher = eventPublisher;
+        this.catalogEngine = catalogEngine;
+        this.productSearchIndex = productSearchIndex;
+        this.tokenKey = streamName + ":" + (nodeId.isBlank() ? hostName() : nodeId);
+        this.batchSize = batchSize;
+        this.maxAwait = maxAwait;
+        this.checkpointInterval = checkpointInterval;
+        this.retryDelay = retryDelay;
+    }
+
+    // ahead of the read models' own ApplicationReadyEvent loads, so the start time precedes them
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        try {
+            if (resumeTokenStore.load(tokenKey) == null) {
+                startAt = operationTime();
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the change stream start position, the stream starts when it opens: {}", e.getMessage());
+        }
+        worker = new Thread(this::run, "product-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // the cursor wakes up at least every max-await, so the loop notices the flag without an interrupt
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(maxAwait.multipliedBy(3).toMillis());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+                log.info("Following the products change stream ({})", savedToken != null ? "resumed" : startAt != null ? "from " + startAt : "from now");
+                follow(cursor);
+            } catch (MongoCommandException e) {
+                if (!UNRESUMABLE.contains(e.getErrorCode())) {
+                    retryLater(e);
+                } else {
+                    log.warn("Change stream position lost ({}), rebuilding caches and read models", e.getErrorCodeName());
+                    resumeTokenStore.delete(tokenKey);
+                    savedToken = null;
+                    // this node's own gap, the others may still be following: always bump
+                    resync(true);
+                }
+            } catch (Exception e) {
+                retryLater(e);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        savedToken = resumeTokenStore.load(tokenKey);
+        var stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class)).watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .batchSize(batchSize)
+                .maxAwaitTime(maxAwait.toMillis(), TimeUnit.MILLISECONDS);
+        if (savedToken != null) {
+            return stream.resumeAfter(savedToken).cursor();
+        }
+        return (startAt != null ? stream.startAtOperationTime(startAt) : stream).cursor();
+    }
+
+    private void follow(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) {
+        while (running) {
+            List<ChangeStreamDocument<Document>> batch = new ArrayList<>();
+            ChangeStreamDocument<Document> change;
+            while (batch.size() < batchSize && (change = cursor.tryNext()) != null) {
+                batch.add(change);
+            }
+            if (!apply(batch)) {
+                // drop, rename or invalidate: the cursor is dead, start over on whatever the collection is now
+                resumeTokenStore.delete(tokenKey);
+                savedToken = null;
+                return;
+            }
+            BsonDocument token = cursor.getResumeToken();
+            // idle polls also move the token forward; those are only worth a write now and then
+            boolean due = !batch.isEmpty() || System.nanoTime() - savedAtNanos > checkpointInterval.toNanos();
+            if (token != null && due && !token.equals(savedToken)) {
+                resumeTokenStore.save(tokenKey, token);
+                savedToken = token;
+                savedAtNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Applies one batch: a single eviction round and at most one catalog version bump, then one
+     * event per product in stream order. Returns {@code false} once the stream can no longer continue.
+     */
+    boolean apply(List<ChangeStreamDocument<Document>> batch) {
+        Map<String, Product> changed = new LinkedHashMap<>();
+        List<String> changeIds = new ArrayList<>();
+        boolean unclaimable = false;
+        boolean catalogChanged = false;
+        for (ChangeStreamDocument<Document> change : batch) {
+            OperationType operation = change.getOperationType();
+            switch (operation) {
+                case INSERT, UPDATE, REPLACE, DELETE -> {
+                    String id = idOf(change.getDocumentKey());
+                    if (id == null) {
+                        continue;
+                    }
+                    // no full document on delete, or on an update whose product was deleted before the lookup
+                    Document document = change.getFullDocument();
+                    changed.put(id, document != null ? mongoTemplate.getConverter().read(Product.class, document) : null);
+                    catalogChanged |= operation != OperationType.UPDATE || touchesCatalog(change.getUpdateDescription());
+                    String changeId = changeIdOf(change);
+                    if (changeId != null) {
+                        changeIds.add(changeId);
+                    } else {
+                        unclaimable = true;
+                    }
+                }
+                case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                    log.warn("Products collection {} outside this service, rebuilding caches and read models", operation.getValue());
+                    String changeId = changeIdOf(change);
+                    resync(changeId == null || catalogVersion.claim(List.of(changeId)));
+                    return false;
+                }
+                default -> log.debug("Ignoring change stream event {}", operation.getValue());
+            }
+        }
+        if (changed.isEmpty()) {
+            return true;
+        }
+        Cache cache = cacheManager.getCache("product_by_id");
+        if (cache instanceof TwoTierCache twoTier) {
+            twoTier.evictWithoutBroadcast(changed.keySet());
+        } else if (cache != null) {
+            changed.keySet().forEach(cache::evict);
+        }
+        // claim first even when a change has no token, so no other node bumps the rest again
+        boolean claimed = catalogVersion.claim(changeIds) || unclaimable;
+        if (!claimed) {
+            log.debug("Catalog version already advanced for these changes by another node");
+        } else if (catalogChanged) {
+            catalogVersion.bump();
+        } else {
+            catalogVersion.touch();
+        }
+        changed.forEach((id, product) -> eventPublisher.publishEvent(new ProductChangedEvent(id, product)));
+        log.debug("Applied {} product changes from the change stream", changed.size());
+        return true;
+    }
+
+    private static boolean touchesCatalog(UpdateDescription update) {
+        if (update == null) {
+            return true;
+        }
+        List<String> fields = new ArrayList<>();
+        if (update.getUpdatedFields() != null) {
+            fields.addAll(update.getUpdatedFields().keySet());
+        }
+        if (update.getRemovedFields() != null) {
+            fields.addAll(update.getRemovedFields());
+        }
+        // dotted paths ("price.amount") change the top-level field they start with
+        return fields.stream().map(field -> field.split("\\.", 2)[0]).anyMatch(ProductQueries.CATALOG_FIELDS::contains);
+    }
+
+    // the resume token's _data identifies the event the same way on every node
+    private static String changeIdOf(ChangeStreamDocument<Document> change) {
+        BsonDocument token = change.getResumeToken();
+        if (token == null) {
+            return null;
+        }
+        BsonValue data = token.get("_data");
+        return data != null && data.isString() ? data.asString().getValue() : token.toJson();
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    // anything may have changed while the stream was not followed: drop it all and reload
+    private void resync(boolean bump) {
+        try {
+            startAt = operationTime();
+        } catch (Exception e) {
+            startAt = null;
+            log.warn("Could not read the cluster time before reloading, the stream restarts from now: {}", e.getMessage());
+        }
+        Cache cache = cacheManager.getCache("product_by_id");
+        if (cache != null) {
+            cache.clear();
+        }
+        if (bump) {
+            catalogVersion.bump();
+        }
+        catalogEngine.loadOnStartup();
+        productSearchIndex.loadOnStartup();
+    }
+
+    // latest cluster time this node has seen; startAtOperationTime is inclusive, so at most one write is replayed
+    private BsonTimestamp operationTime() {
+        BsonDocument reply = mongoTemplate.getDb().runCommand(new BsonDocument("ping", new BsonInt32(1)), BsonDocument.class);
+        return reply.isTimestamp("operationTime") ? reply.getTimestamp("operationTime") : null;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("products.change-stream.node-id is required when the host name cannot be resolved", e);
+        }
+    }
+
+    private void retryLater(Exception e) {
+        if (!running) {
+            return;
+        }
+        log.warn("Products change stream interrupted, retrying in {}: {}", retryDelay, e.getMessage());
+        try {
+            Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.model.Product;
+
+/**
+ * Published after a product was created, updated or deleted so in-memory read models can follow.
+ * {@code product} is the current state, or {@code null} when the product no longer exists.
+ */
+public record ProductChangedEvent(String productId, Product product) {
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,116 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
+import com.bread.productservice.model.ProductOutboxEvent;
+
+import com.mongodb.MongoException;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records product changes for {@link ProductOutboxRelay}. Product writes, single or a bulk chunk,
+ * run through {@link #write} so the change and its outbox events commit together in one Mongo
+ * transaction (replica set required). Disabled, {@code write} just runs the change and nothing is recorded.
+ */
+@Component
+public class ProductOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductOutbox.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactions;
+    private final boolean enabled;
+    private final int maxAttempts;
+
+    public ProductOutbox(MongoTemplate mongoTemplate, MongoDatabaseFactory mongoDatabaseFactory,
+                         @Value("${products.outbox.enabled:false}") boolean enabled,
+                         @Value("${products.outbox.transaction-attempts:5}") int maxAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        // not a bean: only these writes become transactional, the rest of the service keeps plain single-document writes
+        this.transactions = enabled ? new TransactionTemplate(new MongoTransactionManager(mongoDatabaseFactory)) : null;
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a product write and the {@link #record} calls it makes atomically. Concurrent transactions
+     * on the same product abort with a write conflict instead of waiting, so those are retried.
+     */
+    public <T> T write(Supplier<T> write) {
+        if (!enabled) {
+            return write.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(status -> write.get());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                log.debug("Retrying product write after transient transaction error (attempt {}): {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    public void record(ProductEventType type, String productId, Product product) {
+        if (enabled) {
+            mongoTemplate.insert(event(type, productId, product));
+        }
+    }
+
+    /**
+     * Events of a bulk chunk, recorded inside the chunk's {@link #write} (one bad item aborts the
+     * transaction, so the bulk service then redoes the chunk one item per transaction).
+     */
+    public void recordAll(ProductEventType type, List<Product> products) {
+        if (!enabled || products.isEmpty()) {
+            return;
+        }
+        List<ProductOutboxEvent> events = new ArrayList<>(products.size());
+        products.forEach(product -> events.add(event(type, product.getId(), product)));
+        mongoTemplate.insertAll(events);
+    }
+
+    /** Deletes of the given products (id and version read before removing them): each takes the version after the one it removed. */
+    public void recordDeleted(List<Product> removed) {
+        if (!enabled || removed.isEmpty()) {
+            return;
+        }
+        List<ProductOutboxEvent> events = new ArrayList<>(removed.size());
+        removed.forEach(product -> events.add(new ProductOutboxEvent(new ObjectId().toHexString(), ProductEventType.DELETED, product.getId(),
+                product.getVersion() != null ? product.getVersion() + 1 : null, null, Instant.now())));
+        mongoTemplate.insertAll(events);
+    }
+
+    private static ProductOutboxEvent event(ProductEventType type, String productId, Product product) {
+        return new ProductOutboxEvent(new ObjectId().toHexString(), type, productId,
+                product != null ? product.getVersion() : null, product, Instant.now());
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
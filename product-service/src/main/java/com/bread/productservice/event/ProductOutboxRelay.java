@@ -0,0 +1,184 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.model.ProductOutboxEvent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the {@link ProductOutbox} to Kafka: reads the oldest events a batch at a time, sends
+ * them keyed by product id (one partition per product, so its events stay in order) and deletes
+ * only those the broker acknowledged. Batching and LZ4 compression are producer settings
+ * ({@code spring.kafka.producer}). One node relays at a time, holding a lease document that the
+ * others take over once it expires; anything unacknowledged is sent again after a crash, so
+ * consumers deduplicate on the {@code eventId} header.
+ */
+@Component
+@ConditionalOnProperty(name = "products.outbox.enabled", havingValue = "true")
+public class ProductOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductOutboxRelay.class);
+    static final String LEASE_COLLECTION = "product_outbox_lease";
+    private static final String LEASE_ID = "relay";
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration sendTimeout;
+    private final Duration leaseTtl;
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public ProductOutboxRelay(MongoTemplate mongoTemplate, KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper,
+                              @Value("${products.outbox.topic:product-events}") String topic,
+                              @Value("${products.outbox.batch-size:500}") int batchSize,
+                              @Value("${products.outbox.poll-interval:200ms}") Duration pollInterval,
+                              @Value("${products.outbox.send-timeout:30s}") Duration sendTimeout,
+                              @Value("${products.outbox.lease-ttl:30s}") Duration leaseTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.sendTimeout = sendTimeout;
+        this.leaseTtl = leaseTtl;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "product-outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(sendTimeout.toMillis());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                // a full batch means more is waiting: go again without sleeping
+                if (relayBatch() < batchSize) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Outbox relay failed, retrying: {}", e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    /** Sends one batch and returns how many events were published, 0 when another node holds the lease. */
+    int relayBatch() throws InterruptedException {
+        if (!holdLease()) {
+            return 0;
+        }
+        Query oldest = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        List<ProductOutboxEvent> batch = mongoTemplate.find(oldest, ProductOutboxEvent.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // all sends go out before waiting on any, so the producer fills its batches
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (ProductOutboxEvent event : batch) {
+            sends.add(kafkaTemplate.send(record(event)));
+        }
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<String> acknowledged = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acknowledged.add(batch.get(i).getId());
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Outbox event {} for product {} not published: {}", batch.get(i).getId(), batch.get(i).getProductId(),
+                        e.getMessage());
+            }
+        }
+        if (!acknowledged.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(acknowledged)), ProductOutboxEvent.class);
+        }
+        log.debug("Published {} of {} outbox events", acknowledged.size(), batch.size());
+        return acknowledged.size();
+    }
+
+    private ProducerRecord<String, String> record(ProductOutboxEvent event) {
+        try {
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, event.getProductId(), objectMapper.writeValueAsString(event));
+            record.headers().add("eventId", event.getId().getBytes(StandardCharsets.UTF_8));
+            record.headers().add("eventType", event.getType().name().getBytes(StandardCharsets.UTF_8));
+            return record;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox event " + event.getId(), e);
+        }
+    }
+
+    // renews our lease, or takes it over once expired; a live lease of another node makes the upsert hit the _id index
+    private boolean holdLease() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        try {
+            mongoTemplate.upsert(query, new Update().set("owner", owner).set("expiresAt", now.plus(leaseTtl)), LEASE_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(Math.max(pollInterval.toMillis(), 1000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
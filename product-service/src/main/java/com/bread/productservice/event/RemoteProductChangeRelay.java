@@ -0,0 +1,55 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.cache.CacheInvalidation;
+import com.bread.productservice.cache.CacheInvalidationBus;
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.repository.ProductRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns product_by_id invalidations broadcast by other nodes into local {@link ProductChangedEvent}s,
+ * so this node's in-memory read models pick up writes made elsewhere. Not needed when the
+ * change stream is followed: every node then sees every write on its own. Only writes are
+ * broadcast: read-miss fills go through {@code TwoTierCache.putIfAbsent} and never get here.
+ */
+@Component
+@ConditionalOnProperty(name = "products.change-stream.enabled", havingValue = "false", matchIfMissing = true)
+public class RemoteProductChangeRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteProductChangeRelay.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+
+    public RemoteProductChangeRelay(CacheInvalidationBus cacheInvalidationBus, TwoTierCacheManager cacheManager,
+                                    ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = cacheManager.getNodeId();
+        cacheInvalidationBus.subscribe(this::onInvalidation);
+    }
+
+    void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin()) || invalidation.isClear() || !"product_by_id".equals(invalidation.cacheName())) {
+            return;
+        }
+        try {
+            // bulk writes arrive as one message; reload them with one query instead of one per id
+            Map<String, Product> current = new HashMap<>();
+            productRepository.findAllById(invalidation.keys()).forEach(product -> current.put(product.getId(), product));
+            invalidation.keys().forEach(id -> eventPublisher.publishEvent(new ProductChangedEvent(id, current.get(id))));
+        } catch (Exception e) {
+            log.warn("Could not refresh {} products after remote change: {}", invalidation.keys().size(), e.getMessage());
+        }
+    }
+}
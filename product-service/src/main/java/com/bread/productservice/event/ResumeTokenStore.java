@@ -0,0 +1,50 @@
+package com.bread.productservice.event;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Last processed change-stream position per stream and node, kept in Mongo next to the data it
+ * describes so a restarted node resumes where it left off instead of missing the writes made
+ * meanwhile. Nodes apply changes at their own pace, so each keeps its own position.
+ */
+@Component
+@ConditionalOnProperty(name = "products.change-stream.enabled", havingValue = "true")
+public class ResumeTokenStore {
+
+    static final String COLLECTION = "change_stream_tokens";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ResumeTokenStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public BsonDocument load(String stream) {
+        BsonDocument saved = tokens().find(Filters.eq("_id", stream)).first();
+        return saved != null && saved.isDocument("token") ? saved.getDocument("token") : null;
+    }
+
+    public void save(String stream, BsonDocument token) {
+        BsonDocument saved = new BsonDocument("_id", new BsonString(stream))
+                .append("token", token)
+                .append("updatedAt", new BsonDateTime(System.currentTimeMillis()));
+        tokens().replaceOne(Filters.eq("_id", stream), saved, new ReplaceOptions().upsert(true));
+    }
+
+    public void delete(String stream) {
+        tokens().deleteOne(Filters.eq("_id", stream));
+    }
+
+    private MongoCollection<BsonDocument> tokens() {
+        return mongoTemplate.getCollection(COLLECTION).withDocumentClass(BsonDocument.class);
+    }
+}
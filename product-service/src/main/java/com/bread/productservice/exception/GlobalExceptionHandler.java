@@ -4,7 +4,9 @@ import graphql.GraphQLError;
 import graphql.GraphqlErrorBuilder;
 import graphql.schema.DataFetchingEnvironment;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.ErrorType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import reactor.core.publisher.Mono;
@@ -38,6 +40,22 @@ public class GlobalExceptionHandler implements DataFetcherExceptionResolver {
                     .message("Validation failed: " + errorMessage)
                     .build();
 
+            return Mono.just(List.of(error));
+        } else if (ex instanceof InsufficientStockException || ex instanceof OptimisticLockingFailureException) {
+            GraphQLError error = GraphqlErrorBuilder.newError(environment)
+                    .errorType(ErrorType.BAD_REQUEST)
+                    .message(ex instanceof InsufficientStockException ? ex.getMessage()
+                            : "Product was modified concurrently, read it again and retry")
+                    .build();
+
+            return Mono.just(List.of(error));
+        } else if (ex instanceof InvalidRequestException ire) {
+            // only our own validation messages reach the client; any other exception stays an internal error
+            GraphQLError error = GraphqlErrorBuilder.newError(environment)
+                    .errorType(ErrorType.BAD_REQUEST)
+                    .message(ire.getMessage())
+                    .build();
+
             return Mono.just(List.of(error));
         }
 
@@ -0,0 +1,16 @@
+package com.bread.productservice.exception;
+
+// a reservation asked for more units than the product has left; nothing was reserved
+public class InsufficientStockException extends RuntimeException {
+
+    private final String productId;
+
+    public InsufficientStockException(String productId, int requested) {
+        super("Insufficient stock for product " + productId + ": requested " + requested);
+        this.productId = productId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+}
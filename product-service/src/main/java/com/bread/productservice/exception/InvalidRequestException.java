@@ -0,0 +1,9 @@
+package com.bread.productservice.exception;
+
+// the client sent something this service cannot act on (bad cursor, patch or paging); the message is safe to return
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,8 @@ package com.bread.productservice.model;
 import java.io.Serializable;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.*;
@@ -11,11 +13,19 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data // Lombok genera getters, setters, equals, hashcode automaticamente
-@Document(collection = "products") // Nombre de la colección en MongoDB - le dice a Spring Data Mongo que esta clase es un documento
+@Document(collection = "products", collation = Product.CASE_INSENSITIVE) // Nombre de la colección en MongoDB - le dice a Spring Data Mongo que esta clase es un documento
+// every index ends in price so filtered queries are also served in price order; the collation makes type/flavor matches case-insensitive without regexes
+@CompoundIndex(name = "price_id", def = "{ 'price': 1, '_id': 1 }")
+@CompoundIndex(name = "type_price", def = "{ 'type': 1, 'price': 1 }")
+@CompoundIndex(name = "flavor_price", def = "{ 'flavor': 1, 'price': 1 }")
+@CompoundIndex(name = "onSale_price", def = "{ 'onSale': 1, 'price': 1 }")
+@CompoundIndex(name = "type_flavor_price", def = "{ 'type': 1, 'flavor': 1, 'price': 1 }")
 @AllArgsConstructor
 @NoArgsConstructor
 public class Product implements Serializable { //Redis por default serializa los objetos a JSON, por lo que es necesario implementar Serializable para que funcione correctamente en Redis
 
+    public static final String CASE_INSENSITIVE = "{ 'locale': 'en', 'strength': 2 }";
+
     @Id
     private String id;
 
@@ -32,7 +42,7 @@ public class Product implements Serializable { //Redis por default serializa los
     private Double price;
 
     @NotNull(message = "Quantity is required")
-    @Positive(message = "La cantidad debe ser positiva")
+    @PositiveOrZero(message = "La cantidad no puede ser negativa") // sold out is a valid stored state, new products still need stock (ProductInputDTO)
     private Integer quantity;
 
     @NotBlank(message = "imgUrl cannot be empty")
@@ -49,4 +59,14 @@ public class Product implements Serializable { //Redis por default serializa los
     @DecimalMin(value = "0.0", inclusive = true, message = "Discount must be at least 0")
     @DecimalMax(value = "100.0", inclusive = true, message = "Discount cannot exceed 100%")
     private Double discountPercentage;
+
+    // optimistic locking: save() only matches the version it read, and every stock change increments it
+    @Version
+    private Long version;
+
+    // catalog fields only; the version is assigned on insert
+    public Product(String id, String name, String description, Double price, Integer quantity, String imgUrl,
+                   String type, boolean onSale, String flavor, Double discountPercentage) {
+        this(id, name, description, price, quantity, imgUrl, type, onSale, flavor, discountPercentage, null);
+    }
 }
@@ -0,0 +1,8 @@
+package com.bread.productservice.model;
+
+public enum ProductEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    STOCK_CHANGED
+}
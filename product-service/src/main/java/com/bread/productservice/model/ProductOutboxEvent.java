@@ -0,0 +1,36 @@
+package com.bread.productservice.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Product change waiting to be published to Kafka. Written in the same transaction as the change
+ * itself and deleted once the broker acknowledged it, so a crash can duplicate an event but not lose it.
+ * {@code product} is the state after the change ({@code null} for deletes); consumers order events
+ * of one product by {@code productVersion}, which a delete sets one past the version it removed.
+ */
+@Data
+@Document(collection = "product_outbox")
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductOutboxEvent {
+
+    @Id
+    private String id; // ObjectId: _id order is (roughly) write order, and doubles as the event id for deduplication
+
+    private ProductEventType type;
+
+    private String productId;
+
+    private Long productVersion;
+
+    private Product product;
+
+    private Instant createdAt;
+}
@@ -3,14 +3,19 @@ package com.bread.productservice.repository;
 import com.bread.productservice.model.Product;
 import java.util.List;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ProductRepository extends MongoRepository<Product, String> {
 
+    // derived IgnoreCase queries compile to /^value$/i regexes that cannot use an index;
+    // plain equality under the collection's case-insensitive collation keeps the semantics and hits the indexes
+    @Query("{ 'type': ?0 }")
     List<Product> findByTypeIgnoreCase(String type, Pageable pageable);
 
+    @Query("{ 'flavor': ?0 }")
     List<Product> findByFlavorIgnoreCase(String flavor, Pageable pageable);
 
     List<Product> findByOnSale(boolean onSale, Pageable pageable);
@@ -19,9 +24,12 @@ public interface ProductRepository extends MongoRepository<Product, String> {
 
     List<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
+    @Query("{ 'type': ?0, 'flavor': ?1, 'price': { '$gt': ?2, '$lt': ?3 } }")
     List<Product> findByTypeIgnoreCaseAndFlavorIgnoreCaseAndPriceBetween(String type, String flavor, Double priceFrom, Double priceTo, Pageable pageable);
 
+    @Query("{ 'type': ?0, 'price': { '$gt': ?1, '$lt': ?2 } }")
     List<Product> findByTypeIgnoreCaseAndPriceBetween(String type, Double priceFrom, Double priceTo, Pageable pageable);
 
+    @Query("{ 'flavor': ?0, 'price': { '$gt': ?1, '$lt': ?2 } }")
     List<Product> findByFlavorIgnoreCaseAndPriceBetween(String flavor, Double priceFrom, Double priceTo, Pageable pageable);
 }
@@ -0,0 +1,298 @@
+package com.bread.productservice.search;
+
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.repository.ProductRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process search structures over the catalog, so name search and typeahead never touch Mongo.
+ * <ul>
+ *     <li>1-, 2- and 3-grams of the lowercased name answer "name contains" (same semantics as the old
+ *     regex), so even the first typeahead keystrokes are a posting lookup;</li>
+ *     <li>a sorted map of name and description words answers prefix typeahead.</li>
+ * </ul>
+ * Loaded once the application is ready and kept current from {@link ProductChangedEvent}s; those
+ * that arrive while the catalog is read are replayed over the loaded maps, so a (re)load never
+ * reverts a write that raced it.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final int GRAM = 3;
+    // above this many candidates, walking the name order and stopping at the page beats sorting them
+    private static final int SORT_LIMIT = 1024;
+    private static final Comparator<Product> BY_NAME = Comparator
+            .comparing((Product p) -> normalize(p.getName()))
+            .thenComparing(Product::getId);
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Product> products = new HashMap<>();
+    private NavigableSet<Product> byName = new TreeSet<>(BY_NAME);
+    private Map<String, Set<String>> grams = new HashMap<>();
+    private NavigableMap<String, Set<String>> words = new TreeMap<>();
+    private volatile boolean ready;
+    // changes seen since the running load started reading; null when no load runs
+    private List<ProductChangedEvent> pending;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        setPending(new ArrayList<>());
+        try {
+            long start = System.nanoTime();
+            load(productRepository.findAll());
+            log.info("Search index loaded with {} products in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            setPending(null);
+            log.warn("Search index not loaded, name search falls back to Mongo: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.productId());
+        } else {
+            index(event.product());
+        }
+    }
+
+    private void setPending(List<ProductChangedEvent> events) {
+        lock.writeLock().lock();
+        try {
+            pending = events;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void load(Collection<Product> catalog) {
+        Map<String, Product> newProducts = new HashMap<>();
+        NavigableSet<Product> newByName = new TreeSet<>(BY_NAME);
+        Map<String, Set<String>> newGrams = new HashMap<>();
+        NavigableMap<String, Set<String>> newWords = new TreeMap<>();
+        for (Product product : catalog) {
+            newProducts.put(product.getId(), product);
+            newByName.add(product);
+            addPostings(product, newGrams, newWords);
+        }
+        lock.writeLock().lock();
+        try {
+            products = newProducts;
+            byName = newByName;
+            grams = newGrams;
+            words = newWords;
+            if (pending != null) {
+                pending.forEach(this::apply);
+                pending = null;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            Product previous = products.put(product.getId(), product);
+            if (previous != null) {
+                byName.remove(previous);
+                removePostings(previous);
+            }
+            byName.add(product);
+            addPostings(product, grams, words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Product previous = products.remove(id);
+            if (previous != null) {
+                byName.remove(previous);
+                removePostings(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // case-insensitive "name contains text", ordered by name
+    public List<Product> search(String text, int page, int size) {
+        String needle = normalize(text);
+        lock.readLock().lock();
+        try {
+            Stream<Product> matches;
+            if (needle.isEmpty()) {
+                matches = byName.stream();
+            } else {
+                Set<String> candidates = candidatesFor(needle);
+                matches = candidates.size() > SORT_LIMIT
+                        ? byName.stream().filter(product -> candidates.contains(product.getId()))
+                        : candidates.stream().map(products::get).sorted(BY_NAME);
+            }
+            return matches
+                    .filter(product -> normalize(product.getName()).contains(needle))
+                    .skip((long) page * size)
+                    .limit(size)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // products with a name or description word starting with prefix; name matches first
+    public List<Product> autocomplete(String prefix, int limit) {
+        String start = normalize(prefix).trim();
+        if (start.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            words.subMap(start, true, start + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+            return ids.stream()
+                    .map(products::get)
+                    .sorted(Comparator.comparing((Product p) -> !nameHasWordStartingWith(p, start)).thenComparing(BY_NAME))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // short needles are grams themselves; longer ones intersect their trigrams (then verified by contains)
+    private Set<String> candidatesFor(String needle) {
+        if (needle.length() <= GRAM) {
+            return grams.getOrDefault(needle, Set.of());
+        }
+        List<Set<String>> postings = new ArrayList<>();
+        for (String gram : trigrams(needle)) {
+            Set<String> ids = grams.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<String> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private static void addPostings(Product product, Map<String, Set<String>> grams, NavigableMap<String, Set<String>> words) {
+        for (String gram : grams(normalize(product.getName()))) {
+            grams.computeIfAbsent(gram, g -> new HashSet<>()).add(product.getId());
+        }
+        for (String word : words(product)) {
+            words.computeIfAbsent(word, w -> new HashSet<>()).add(product.getId());
+        }
+    }
+
+    private void removePostings(Product product) {
+        for (String gram : grams(normalize(product.getName()))) {
+            removePosting(grams, gram, product.getId());
+        }
+        for (String word : words(product)) {
+            removePosting(words, word, product.getId());
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> postings, String key, String id) {
+        Set<String> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // every substring of 1 to GRAM characters
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            for (int length = 1; length <= GRAM && i + length <= text.length(); length++) {
+                result.add(text.substring(i, i + length));
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static Set<String> words(Product product) {
+        Set<String> result = new HashSet<>();
+        result.addAll(tokenize(product.getName()));
+        result.addAll(tokenize(product.getDescription()));
+        return result;
+    }
+
+    private static boolean nameHasWordStartingWith(Product product, String prefix) {
+        return tokenize(product.getName()).stream().anyMatch(word -> word.startsWith(prefix));
+    }
+
+    private static List<String> tokenize(String text) {
+        return Arrays.stream(normalize(text).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bread.productservice.service;
+
+/**
+ * How {@link ProductService#getFilteredProducts} fills the totals of a page.
+ */
+public enum CountMode {
+    EXACT,     // count every matching document on each request
+    CACHED,    // exact count cached per normalized filter until the catalog version changes
+    ESTIMATED, // collection metadata when unfiltered, otherwise a count capped at a configured limit
+    HAS_NEXT   // no count at all, fetch size+1 rows to know whether another page exists
+}
@@ -0,0 +1,522 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.cache.TwoTierCache;
+import com.bread.productservice.dto.BulkItemErrorDTO;
+import com.bread.productservice.dto.BulkResultDTO;
+import com.bread.productservice.dto.ImportResultDTO;
+import com.bread.productservice.dto.ProductInputDTO;
+import com.bread.productservice.dto.ProductUpsertDTO;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.exception.InvalidRequestException;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Batch writes for catalog refreshes: items are validated one by one, written in unordered
+ * chunks of {@code products.bulk.chunk-size}, and failures are reported per item instead of
+ * aborting the batch. Caches are invalidated once per chunk (product_by_id) and once per
+ * request (catalog version), not once per item. With the outbox enabled each chunk commits
+ * together with its outbox events, see {@link #writeChunk}.
+ *
+ * <p>The NDJSON export/import stream the whole catalog with a flat heap: export reads a Mongo
+ * cursor and writes one product per line, import parses line by line and upserts every full chunk.
+ */
+@Service
+@Timed(value = "products.service", histogram = true)
+public class ProductBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final Validator validator;
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductOutbox productOutbox;
+    private final ObjectReader productReader;
+    private final ObjectWriter productWriter;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public ProductBulkService(MongoTemplate mongoTemplate, Validator validator, CatalogVersion catalogVersion,
+                              CacheManager cacheManager, ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                              ProductOutbox productOutbox,
+                              @Value("${products.bulk.chunk-size:500}") int chunkSize,
+                              @Value("${products.bulk.max-items:10000}") int maxItems) {
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.catalogVersion = catalogVersion;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.productOutbox = productOutbox;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.productWriter = objectMapper.writerFor(Product.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public BulkResultDTO createProducts(List<ProductInputDTO> inputs) {
+        BulkResultDTO result = start(inputs.size());
+        List<Item> valid = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            String error = validate(inputs.get(i));
+            if (error != null) {
+                result.getErrors().add(new BulkItemErrorDTO(i, null, error));
+            } else {
+                // ids are assigned here so the response can list them without reading back
+                Product product = toProduct(new ObjectId().toHexString(), inputs.get(i));
+                product.setVersion(0L); // bulk inserts do not go through the versioned save()
+                valid.add(new Item(i, product));
+            }
+        }
+
+        boolean written = false;
+        try {
+            for (List<Item> chunk : chunks(valid)) {
+                Written write = writeChunk(chunk, result, items -> {
+                    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+                    items.forEach(item -> bulk.insert(item.product()));
+                    return bulk;
+                }, (items, outcome) -> {
+                    List<Product> created = outcome.succeeded(items).stream().map(Item::product).toList();
+                    productOutbox.recordAll(ProductEventType.CREATED, created);
+                    return created;
+                });
+                List<Item> succeeded = write.outcome().succeeded(chunk);
+                result.setInserted(result.getInserted() + succeeded.size());
+                written |= published(succeeded, result);
+            }
+        } finally {
+            finish("createProducts", result, written);
+        }
+        return result;
+    }
+
+    public BulkResultDTO upsertProducts(List<ProductUpsertDTO> items) {
+        BulkResultDTO result = start(items.size());
+        List<Item> valid = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProductUpsertDTO item = items.get(i);
+            String id = item != null ? item.getId() : null;
+            String error = id == null || id.isBlank() ? "id: is required"
+                    : !seen.add(id) ? "id: duplicated in this request"
+                    : validate(item.getInput());
+            if (error != null) {
+                result.getErrors().add(new BulkItemErrorDTO(i, id, error));
+            } else {
+                valid.add(new Item(i, toProduct(id, item.getInput())));
+            }
+        }
+
+        boolean written = false;
+        try {
+            for (List<Item> chunk : chunks(valid)) {
+                written |= upsertChunk(chunk, result);
+            }
+        } finally {
+            finish("upsertProducts", result, written);
+        }
+        return result;
+    }
+
+    public BulkResultDTO deleteProducts(List<String> ids) {
+        BulkResultDTO result = start(ids.size());
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (id == null || id.isBlank()) {
+                result.getErrors().add(new BulkItemErrorDTO(i, id, "id: is required"));
+            } else if (positions.putIfAbsent(id, i) != null) {
+                result.getErrors().add(new BulkItemErrorDTO(i, id, "id: duplicated in this request"));
+            }
+        }
+
+        boolean written = false;
+        try {
+            for (List<String> chunk : chunks(new ArrayList<>(positions.keySet()))) {
+                // tells which ids do not exist so they can be reported, and the versions the delete events follow
+                Query existingQuery = Query.query(Criteria.where("id").in(chunk));
+                existingQuery.fields().include("id", "version");
+                List<Product> found = mongoTemplate.find(existingQuery, Product.class);
+                Set<String> existing = found.stream()
+                        .map(Product::getId)
+                        .collect(Collectors.toSet());
+                chunk.stream()
+                        .filter(id -> !existing.contains(id))
+                        .forEach(id -> result.getErrors().add(new BulkItemErrorDTO(positions.get(id), id, "Product not found")));
+                if (existing.isEmpty()) {
+                    continue;
+                }
+
+                List<String> deleted = chunk.stream().filter(existing::contains).toList();
+                // a remove by ids has no per-item failures, so the whole chunk and its events are one transaction
+                long count = productOutbox.write(() -> {
+                    long removed = mongoTemplate.remove(Query.query(Criteria.where("id").in(deleted)), Product.class).getDeletedCount();
+                    productOutbox.recordDeleted(found);
+                    return removed;
+                });
+                result.setDeleted(result.getDeleted() + (int) count);
+                result.getIds().addAll(deleted);
+                evict(deleted);
+                deleted.forEach(id -> eventPublisher.publishEvent(new ProductChangedEvent(id, null)));
+                written = true;
+            }
+        } finally {
+            finish("deleteProducts", result, written);
+        }
+        return result;
+    }
+
+    // whole catalog in _id order; the cursor fetches chunk-size documents at a time
+    public long exportProducts(OutputStream out) throws IOException {
+        Query query = new Query().with(Sort.by("id")).cursorBatchSize(chunkSize);
+        long exported = 0;
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                productWriter.writeValue(out, iterator.next());
+                out.write('\n');
+                if (++exported % chunkSize == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        log.info("exportProducts: {} products", exported);
+        return exported;
+    }
+
+    // one product per line, same shape as the export; lines without id are inserted with a new one
+    public ImportResultDTO importProducts(Reader source) throws IOException {
+        ImportResultDTO result = new ImportResultDTO();
+        BufferedReader reader = new BufferedReader(source);
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        Set<String> chunkIds = new HashSet<>();
+        boolean written = false;
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setRead(result.getRead() + 1);
+                Product product;
+                try {
+                    product = productReader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    rejected(result, new BulkItemErrorDTO(lineNumber, null, "invalid JSON: " + e.getOriginalMessage()));
+                    continue;
+                }
+                if (product.getId() == null || product.getId().isBlank()) {
+                    product.setId(new ObjectId().toHexString());
+                }
+                product.setVersion(null); // an exported version means nothing here, the upsert increments the stored one
+                String error = validate(product);
+                if (error != null) {
+                    rejected(result, new BulkItemErrorDTO(lineNumber, product.getId(), error));
+                    continue;
+                }
+                // a repeated id goes to the next chunk so the unordered writes keep the line order
+                if (chunk.size() == chunkSize || !chunkIds.add(product.getId())) {
+                    written |= importChunk(chunk, result);
+                    chunk.clear();
+                    chunkIds.clear();
+                    chunkIds.add(product.getId());
+                }
+                chunk.add(new Item(lineNumber, product));
+            }
+            if (!chunk.isEmpty()) {
+                written |= importChunk(chunk, result);
+            }
+        } finally {
+            if (written) {
+                catalogVersion.bump();
+            }
+            log.info("importProducts: {} read, {} inserted, {} updated, {} failed", result.getRead(), result.getInserted(),
+                    result.getUpdated(), result.getFailed());
+        }
+        return result;
+    }
+
+    private boolean importChunk(List<Item> chunk, ImportResultDTO result) {
+        // scratch result: the ids of a million-line import are not kept
+        BulkResultDTO chunkResult = new BulkResultDTO();
+        boolean written = upsertChunk(chunk, chunkResult);
+        result.setInserted(result.getInserted() + chunkResult.getInserted());
+        result.setUpdated(result.getUpdated() + chunkResult.getUpdated());
+        chunkResult.getErrors().forEach(error -> rejected(result, error));
+        return written;
+    }
+
+    private static void rejected(ImportResultDTO result, BulkItemErrorDTO error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(error);
+        }
+    }
+
+    private boolean upsertChunk(List<Item> chunk, BulkResultDTO result) {
+        Written write = writeChunk(chunk, result, items -> {
+            // upsert by _id: no findById before each write, unlike updateProduct
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+            items.forEach(item -> bulk.upsert(Query.query(Criteria.where("id").is(item.product().getId())), replacement(item.product())));
+            return bulk;
+        }, (items, outcome) -> {
+            // the upsert incremented the stored versions: events carry the documents as written, not the input
+            Map<String, Product> stored = stored(outcome.succeeded(items));
+            List<Product> created = new ArrayList<>();
+            List<Product> updated = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                Product product = outcome.failed().contains(i) ? null : stored.get(items.get(i).product().getId());
+                if (product != null) {
+                    (outcome.upserted().contains(i) ? created : updated).add(product);
+                }
+            }
+            productOutbox.recordAll(ProductEventType.CREATED, created);
+            productOutbox.recordAll(ProductEventType.UPDATED, updated);
+            return List.copyOf(stored.values());
+        });
+        List<Item> succeeded = write.outcome().succeeded(chunk);
+        int inserted = write.outcome().upserted().size(); // a failed operation is never an upsert
+        result.setInserted(result.getInserted() + inserted);
+        result.setUpdated(result.getUpdated() + succeeded.size() - inserted);
+        List<String> ids = succeeded.stream().map(item -> item.product().getId()).toList();
+        evict(ids);
+        result.getIds().addAll(ids);
+        write.products().forEach(product -> eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), product)));
+        return !succeeded.isEmpty();
+    }
+
+    /**
+     * Writes one chunk and records its outbox events ({@code record} returns the products as written).
+     * With the outbox enabled both run in one transaction, so a crash cannot keep the writes and lose
+     * the events. A failed item aborts the whole transaction though: the chunk is then written again
+     * one item per transaction, and only the items that fail on their own are reported.
+     */
+    private Written writeChunk(List<Item> chunk, BulkResultDTO result, Function<List<Item>, BulkOperations> bulk,
+                               BiFunction<List<Item>, Outcome, List<Product>> record) {
+        if (!productOutbox.isEnabled()) {
+            Outcome outcome = execute(bulk.apply(chunk), chunk, result);
+            return new Written(outcome, record.apply(chunk, outcome));
+        }
+        try {
+            return writeAtomically(chunk, bulk, record);
+        } catch (RolledBackException e) {
+            log.debug("Chunk of {} rolled back, writing its items one by one", chunk.size());
+        }
+        Set<Integer> failed = new HashSet<>();
+        Set<Integer> upserted = new HashSet<>();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                Written write = writeAtomically(List.of(chunk.get(i)), bulk, record);
+                if (!write.outcome().upserted().isEmpty()) {
+                    upserted.add(i);
+                }
+                products.addAll(write.products());
+            } catch (RolledBackException e) {
+                failed.add(i);
+                result.getErrors().addAll(e.errors);
+            }
+        }
+        return new Written(new Outcome(failed, upserted), products);
+    }
+
+    private Written writeAtomically(List<Item> items, Function<List<Item>, BulkOperations> bulk,
+                                    BiFunction<List<Item>, Outcome, List<Product>> record) {
+        return productOutbox.write(() -> {
+            BulkResultDTO errors = new BulkResultDTO();
+            Outcome outcome = execute(bulk.apply(items), items, errors);
+            if (!outcome.failed().isEmpty()) {
+                // the server has already aborted the transaction, nothing more can be written in it
+                throw new RolledBackException(errors.getErrors());
+            }
+            return new Written(outcome, record.apply(items, outcome));
+        });
+    }
+
+    // one read by _id for the chunk; a product deleted since is missing, and its delete event follows this chunk's
+    private Map<String, Product> stored(List<Item> items) {
+        if (items.isEmpty()) {
+            return Map.of();
+        }
+        List<String> ids = items.stream().map(item -> item.product().getId()).toList();
+        Map<String, Product> stored = new HashMap<>();
+        mongoTemplate.find(Query.query(Criteria.where("id").in(ids)), Product.class).forEach(product -> stored.put(product.getId(), product));
+        return stored;
+    }
+
+    private BulkResultDTO start(int requested) {
+        if (requested > maxItems) {
+            throw new InvalidRequestException("A bulk request accepts at most " + maxItems + " items, got " + requested);
+        }
+        BulkResultDTO result = new BulkResultDTO();
+        result.setRequested(requested);
+        return result;
+    }
+
+    // one version bump for the whole request, even if a later chunk failed
+    private void finish(String operation, BulkResultDTO result, boolean written) {
+        if (written) {
+            catalogVersion.bump();
+        }
+        result.getErrors().sort(Comparator.comparingInt(BulkItemErrorDTO::getIndex));
+        log.info("{}: {} requested, {} inserted, {} updated, {} deleted, {} failed", operation, result.getRequested(),
+                result.getInserted(), result.getUpdated(), result.getDeleted(), result.getErrors().size());
+    }
+
+    private Outcome execute(BulkOperations bulk, List<Item> chunk, BulkResultDTO result) {
+        BulkWriteResult writeResult;
+        Set<Integer> failed = new HashSet<>();
+        try {
+            writeResult = bulk.execute();
+        } catch (BulkOperationException e) {
+            writeResult = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                Item item = chunk.get(error.getIndex());
+                failed.add(error.getIndex());
+                result.getErrors().add(new BulkItemErrorDTO(item.index(), item.product().getId(), error.getMessage()));
+            }
+        }
+        Set<Integer> upserted = writeResult == null ? Set.of()
+                : writeResult.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+        return new Outcome(failed, upserted);
+    }
+
+    private boolean published(List<Item> succeeded, BulkResultDTO result) {
+        for (Item item : succeeded) {
+            result.getIds().add(item.product().getId());
+            eventPublisher.publishEvent(new ProductChangedEvent(item.product().getId(), item.product()));
+        }
+        return !succeeded.isEmpty();
+    }
+
+    private void evict(List<String> ids) {
+        Cache cache = cacheManager.getCache("product_by_id");
+        if (cache instanceof TwoTierCache twoTier) {
+            twoTier.evictAll(ids);
+        } else if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    private String validate(Object input) {
+        if (input == null) {
+            return "input: is required";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(input);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    // every catalog field set, version incremented (1 on insert) so optimistic updates see the change
+    private static Update replacement(Product product) {
+        return new Update()
+                .set("name", product.getName())
+                .set("description", product.getDescription())
+                .set("price", product.getPrice())
+                .set("quantity", product.getQuantity())
+                .set("imgUrl", product.getImgUrl())
+                .set("type", product.getType())
+                .set("onSale", product.isOnSale())
+                .set("flavor", product.getFlavor())
+                .set("discountPercentage", product.getDiscountPercentage())
+                .inc("version", 1);
+    }
+
+    private static Product toProduct(String id, ProductInputDTO input) {
+        return new Product(id, input.getName(), input.getDescription(), input.getPrice(), input.getQuantity(), input.getImgUrl(),
+                input.getType(), input.isOnSale(), input.getFlavor(), input.getDiscountPercentage());
+    }
+
+    // index is the position in the request (the line number for imports)
+    private record Item(int index, Product product) {
+    }
+
+    private record Written(Outcome outcome, List<Product> products) {
+    }
+
+    // aborts a chunk's transaction, carrying the errors of the items that failed
+    private static class RolledBackException extends RuntimeException {
+
+        private final List<BulkItemErrorDTO> errors;
+
+        RolledBackException(List<BulkItemErrorDTO> errors) {
+            super(null, null, false, false);
+            this.errors = errors;
+        }
+    }
+
+    // positions within the chunk
+    private record Outcome(Set<Integer> failed, Set<Integer> upserted) {
+
+        List<Item> succeeded(List<Item> chunk) {
+            List<Item> succeeded = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (!failed.contains(i)) {
+                    succeeded.add(chunk.get(i));
+                }
+            }
+            return succeeded;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.model.Product;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+@Service
+@Timed(value = "products.service", histogram = true)
+public class ProductCountService {
+
+    private final MongoTemplate mongoTemplate;
+    private final CountMode defaultMode;
+    private final int estimateCap;
+
+    public ProductCountService(MongoTemplate mongoTemplate,
+                               @Value("${products.paging.count-mode:EXACT}") CountMode defaultMode,
+                               @Value("${products.paging.estimate-cap:1000}") int estimateCap) {
+        this.mongoTemplate = mongoTemplate;
+        this.defaultMode = defaultMode;
+        this.estimateCap = estimateCap;
+    }
+
+    public CountMode getDefaultMode() {
+        return defaultMode;
+    }
+
+    public int getEstimateCap() {
+        return estimateCap;
+    }
+
+    public long countExact(ProductFilterInput filter) {
+        return mongoTemplate.count(ProductQueries.filter(filter), Product.class);
+    }
+
+    // key embeds the catalog version, so any write makes the next call recount
+    @Cacheable(value = "products_count", sync = true, keyGenerator = "catalogKeyGenerator")
+    public long countCached(ProductFilterInput filter) {
+        return countExact(filter);
+    }
+
+    // unfiltered: collection metadata, no scan; filtered: stop counting once the cap is reached
+    public long countEstimated(ProductFilterInput filter, long atLeast) {
+        Query query = ProductQueries.filter(filter);
+        if (query.getQueryObject().isEmpty()) {
+            return mongoTemplate.estimatedCount(Product.class);
+        }
+        return mongoTemplate.count(query.limit((int) Math.max(estimateCap, atLeast)), Product.class);
+    }
+}
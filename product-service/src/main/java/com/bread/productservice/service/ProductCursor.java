@@ -0,0 +1,36 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.exception.InvalidRequestException;
+import com.bread.productservice.model.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a product in the (price, id) order, handed to clients as an opaque string.
+ */
+public record ProductCursor(double price, String id) {
+
+    public static ProductCursor of(Product product) {
+        return new ProductCursor(product.getPrice(), product.getId());
+    }
+
+    public String encode() {
+        String raw = price + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor);
+            }
+            return new ProductCursor(Double.parseDouble(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            // not Base64, or no number before the separator
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
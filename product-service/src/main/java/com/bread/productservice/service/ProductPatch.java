@@ -0,0 +1,130 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.exception.InvalidRequestException;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial update of a product, parsed from the fields a client actually sent (JSON merge patch
+ * semantics: an absent field is left alone, an explicit {@code null} removes an optional field).
+ * Turns into a single {@code $set}/{@code $unset} so the document never has to be read first.
+ */
+final class ProductPatch {
+
+    private static final Set<String> OPTIONAL_FIELDS = Set.of("discountPercentage");
+
+    private final Update update = new Update();
+    private final Long expectedVersion;
+    private boolean catalogChanged;
+
+    private ProductPatch(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
+
+    static ProductPatch from(Map<String, Object> fields) {
+        if (fields == null || fields.isEmpty()) {
+            throw new InvalidRequestException("Patch must contain at least one field");
+        }
+        ProductPatch patch = new ProductPatch(expectedVersion(fields.get("version")));
+        int changes = 0;
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+            if ("version".equals(name) || "id".equals(name)) {
+                continue; // version is the optimistic guard, the id comes from the path
+            }
+            if (value == null) {
+                if (!OPTIONAL_FIELDS.contains(name)) {
+                    throw new InvalidRequestException(name + ": cannot be removed");
+                }
+                patch.update.unset(name);
+            } else {
+                patch.update.set(name, convert(name, value));
+            }
+            patch.catalogChanged |= ProductQueries.CATALOG_FIELDS.contains(name);
+            changes++;
+        }
+        if (changes == 0) {
+            throw new InvalidRequestException("Patch must contain at least one field");
+        }
+        patch.update.inc("version", 1);
+        return patch;
+    }
+
+    // same rules as ProductInputDTO, except quantity: reservations can legitimately leave it at 0
+    private static Object convert(String name, Object value) {
+        return switch (name) {
+            case "name", "description", "imgUrl", "type", "flavor" -> {
+                if (!(value instanceof String text) || text.isBlank()) {
+                    throw new InvalidRequestException(name + ": cannot be empty");
+                }
+                yield text;
+            }
+            case "price" -> {
+                double price = number(name, value).doubleValue();
+                if (price <= 0) {
+                    throw new InvalidRequestException(name + ": must be greater than 0");
+                }
+                yield price;
+            }
+            case "discountPercentage" -> {
+                double discount = number(name, value).doubleValue();
+                if (discount < 0) {
+                    throw new InvalidRequestException(name + ": must be positive or zero");
+                }
+                if (discount > 100) {
+                    throw new InvalidRequestException(name + ": cannot exceed 100");
+                }
+                yield discount;
+            }
+            case "quantity" -> {
+                Number quantity = number(name, value);
+                if (quantity.doubleValue() != quantity.intValue() || quantity.intValue() < 0) {
+                    throw new InvalidRequestException(name + ": must be a positive integer or zero");
+                }
+                yield quantity.intValue();
+            }
+            case "onSale" -> {
+                if (!(value instanceof Boolean onSale)) {
+                    throw new InvalidRequestException(name + ": must be true or false");
+                }
+                yield onSale;
+            }
+            default -> throw new InvalidRequestException("Unknown product field: " + name);
+        };
+    }
+
+    // null sends no guard (the field is nullable in the GraphQL input); anything else must be a whole number
+    private static Long expectedVersion(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Number version = number("version", value);
+        if (version.doubleValue() != version.longValue() || version.longValue() < 0) {
+            throw new InvalidRequestException("version: must be a positive integer or zero");
+        }
+        return version.longValue();
+    }
+
+    private static Number number(String name, Object value) {
+        if (!(value instanceof Number number)) {
+            throw new InvalidRequestException(name + ": must be a number");
+        }
+        return number;
+    }
+
+    Update toUpdate() {
+        return update;
+    }
+
+    Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    boolean isCatalogChanged() {
+        return catalogChanged;
+    }
+}
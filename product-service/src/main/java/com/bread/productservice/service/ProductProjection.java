@@ -0,0 +1,53 @@
+package com.bread.productservice.service;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The subset of {@code Product} fields a caller actually needs, pushed down to Mongo as a
+ * field projection. {@code id} and {@code price} are always kept: paging sorts on them and
+ * cursors are built from them. {@link #toString()} is stable, so it can be part of a cache key.
+ */
+public final class ProductProjection {
+
+    static final List<String> FIELDS = List.of("id", "name", "description", "price", "quantity", "imgUrl", "type", "onSale", "flavor", "discountPercentage", "version");
+
+    public static final ProductProjection ALL = new ProductProjection(new TreeSet<>(FIELDS));
+
+    private final Set<String> fields;
+
+    private ProductProjection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    // unknown names (e.g. __typename) are ignored; an empty selection loads everything
+    public static ProductProjection of(Collection<String> requested) {
+        Set<String> fields = new TreeSet<>(List.of("id", "price"));
+        requested.stream().filter(FIELDS::contains).forEach(fields::add);
+        return fields.size() == FIELDS.size() || requested.isEmpty() ? ALL : new ProductProjection(fields);
+    }
+
+    public boolean isAll() {
+        return fields.size() == FIELDS.size();
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public Query applyTo(Query query) {
+        if (!isAll()) {
+            fields.forEach(field -> query.fields().include(field));
+        }
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "*" : String.join(",", fields);
+    }
+}
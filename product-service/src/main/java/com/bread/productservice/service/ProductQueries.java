@@ -0,0 +1,74 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.dto.ProductFilterInput;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MatchOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Set;
+
+/**
+ * Builds the Mongo queries shared by the paged, keyset and counting read paths.
+ */
+public final class ProductQueries {
+
+    // fields that decide list/filter/facet membership or order; changing any other field leaves cached facets and counts valid
+    public static final Set<String> CATALOG_FIELDS = Set.of("type", "flavor", "onSale", "price");
+
+    private ProductQueries() {
+    }
+
+    public static Query filter(ProductFilterInput filter) {
+        Query query = new Query();
+        if (filter != null) {
+            if (filter.getTypes() != null && !filter.getTypes().isEmpty()) {
+                query.addCriteria(Criteria.where("type").in(filter.getTypes()));
+            }
+            if (filter.getFlavors() != null && !filter.getFlavors().isEmpty()) {
+                query.addCriteria(Criteria.where("flavor").in(filter.getFlavors()));
+            }
+            if (filter.getOnSale() != null) {
+                query.addCriteria(Criteria.where("onSale").is(filter.getOnSale()));
+            }
+            if (filter.getPriceFrom() != null && filter.getPriceTo() != null) {
+                query.addCriteria(Criteria.where("price").gte(filter.getPriceFrom()).lte(filter.getPriceTo()));
+            }
+        }
+        return query;
+    }
+
+    // same predicate as filter(), as the $match stage of an aggregation
+    public static MatchOperation match(ProductFilterInput filter) {
+        Document predicate = filter(filter).getQueryObject();
+        return Aggregation.match(new CriteriaDefinition() {
+            @Override
+            public Document getCriteriaObject() {
+                return predicate;
+            }
+
+            @Override
+            public String getKey() {
+                return null;
+            }
+        });
+    }
+
+    // (price, _id) is unique and totally ordered, so "everything after the cursor" is an index range
+    public static Query keyset(ProductFilterInput filter, ProductCursor after, Sort.Direction direction, int limit) {
+        Query query = filter(filter);
+        if (after != null) {
+            boolean asc = direction.isAscending();
+            Criteria priceBeyond = asc ? Criteria.where("price").gt(after.price()) : Criteria.where("price").lt(after.price());
+            Criteria idBeyond = asc ? Criteria.where("id").gt(after.id()) : Criteria.where("id").lt(after.id());
+            query.addCriteria(new Criteria().orOperator(
+                    priceBeyond,
+                    new Criteria().andOperator(Criteria.where("price").is(after.price()), idBeyond)));
+        }
+        return query.with(Sort.by(direction, "price").and(Sort.by(direction, "id"))).limit(limit);
+    }
+}
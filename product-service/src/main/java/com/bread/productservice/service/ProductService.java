@@ -1,64 +1,158 @@
 package com.bread.productservice.service;
 
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.cache.TwoTierCache;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.dto.FacetCountDTO;
+import com.bread.productservice.dto.PageInfoDTO;
 import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductConnectionDTO;
+import com.bread.productservice.dto.PriceBucketDTO;
+import com.bread.productservice.dto.ProductEdgeDTO;
+import com.bread.productservice.dto.ProductFacetsDTO;
 import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.event.ProductOutbox;
 import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
 import com.bread.productservice.repository.ProductRepository;
+import com.bread.productservice.search.ProductSearchIndex;
 
+import io.micrometer.core.annotation.Timed;
+
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "products.service", histogram = true)
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final MongoTemplate mongoTemplate;
+    private final CatalogVersion catalogVersion;
+    private final ProductCountService productCountService;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogEngine catalogEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final ProductOutbox productOutbox;
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+    // lower bounds of the price facet; the last bucket is open-ended
+    private static final Double[] PRICE_BOUNDARIES = { 0.0, 10.0, 25.0, 50.0, 100.0, Double.MAX_VALUE };
 
-    public ProductService(ProductRepository productRepository, MongoTemplate mongoTemplate) {
+    public ProductService(ProductRepository productRepository, MongoTemplate mongoTemplate, CatalogVersion catalogVersion,
+                          ProductCountService productCountService, ProductSearchIndex productSearchIndex,
+                          CatalogEngine catalogEngine, ApplicationEventPublisher eventPublisher, CacheManager cacheManager,
+                          ProductOutbox productOutbox) {
         this.productRepository = productRepository;
         this.mongoTemplate = mongoTemplate;
+        this.catalogVersion = catalogVersion;
+        this.productCountService = productCountService;
+        this.productSearchIndex = productSearchIndex;
+        this.catalogEngine = catalogEngine;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.productOutbox = productOutbox;
     }
 
-    @Cacheable(value = "products_list")
+    // list/page/filter keys embed the catalog version or revision, so mutations bump it instead of wiping the caches
+    @Cacheable(value = "products_list", sync = true, keyGenerator = "revisionKeyGenerator")
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }    
 
-    @Cacheable(value = "product_by_id", key = "#id")
+    @Cacheable(value = "product_by_id", sync = true, key = "#id")
     public Optional<Product> getProductById(String id) {
         return productRepository.findById(id);
     }
 
-    @CacheEvict(value = { "products_list", "product_by_id" }, allEntries = true)
+    // batched counterpart of getProductById: one cache multi-get, then one findAllById for the misses
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        Set<String> remaining = new LinkedHashSet<>(ids);
+        Map<String, Product> found = new HashMap<>();
+        Cache cache = cacheManager.getCache("product_by_id");
+
+        if (cache instanceof TwoTierCache twoTier) {
+            twoTier.getAll(remaining).forEach((id, wrapper) -> {
+                if (wrapper.get() instanceof Product product) {
+                    found.put((String) id, product);
+                }
+            });
+        } else if (cache != null) {
+            for (String id : remaining) {
+                Product product = cache.get(id, Product.class);
+                if (product != null) {
+                    found.put(id, product);
+                }
+            }
+        }
+        remaining.removeAll(found.keySet());
+
+        if (!remaining.isEmpty()) {
+            for (Product product : productRepository.findAllById(remaining)) {
+                found.put(product.getId(), product);
+                if (cache != null) {
+                    cache.putIfAbsent(product.getId(), product); // a fill, not a write: not broadcast
+                }
+            }
+        }
+        log.debug("Batch loaded {} products, {} from Mongo", ids.size(), remaining.size());
+        return found;
+    }
+
+    @CachePut(value = "product_by_id", key = "#result.id")
     public Product createProduct(Product product) {
-        log.info("Creating product: {}", product);
+        log.debug("Creating product: {}", product);
         try{
-            return productRepository.save(product);
+            Product saved = productOutbox.write(() -> {
+                Product created = productRepository.save(product);
+                productOutbox.record(ProductEventType.CREATED, created.getId(), created);
+                return created;
+            });
+            catalogVersion.bump();
+            eventPublisher.publishEvent(new ProductChangedEvent(saved.getId(), saved));
+            return saved;
         } catch (Exception e) {
             log.error("Error creating product: {}", e.getMessage());
             throw new RuntimeException("Error creating product: " + e.getMessage());
         }
     }
 
-    @CacheEvict(value = { "products_list", "product_by_id" }, allEntries = true)
+    @CacheEvict(value = "product_by_id", key = "#id")
     public Product updateProduct(String id, Product updatedProduct) {
-        return productRepository.findById(id)
+        Product saved = productOutbox.write(() -> productRepository.findById(id)
             .map(existingProduct -> {
                 existingProduct.setName(updatedProduct.getName());
                 existingProduct.setDescription(updatedProduct.getDescription());
@@ -66,27 +160,88 @@ public class ProductService {
                 existingProduct.setQuantity(updatedProduct.getQuantity());
                 existingProduct.setImgUrl(updatedProduct.getImgUrl());
                 existingProduct.setType(updatedProduct.getType());
-                
-                return productRepository.save(existingProduct);
+                existingProduct.setFlavor(updatedProduct.getFlavor());
+                existingProduct.setOnSale(updatedProduct.isOnSale());
+                existingProduct.setDiscountPercentage(updatedProduct.getDiscountPercentage());
+                if (updatedProduct.getVersion() != null) {
+                    // the version the client read: save() fails if stock or another update changed it since
+                    existingProduct.setVersion(updatedProduct.getVersion());
+                }
+
+                Product updated = productRepository.save(existingProduct);
+                productOutbox.record(ProductEventType.UPDATED, id, updated);
+                return updated;
             })
             .orElseThrow(() -> {
                 log.error("Product not found with id: {}", id);
                 return new RuntimeException("Product not found with id: " + id);
-            });
+            }));
+        catalogVersion.bump();
+        eventPublisher.publishEvent(new ProductChangedEvent(id, saved));
+        return saved;
     }
 
-    @CacheEvict(value = { "products_list", "product_by_id" }, allEntries = true)
+    // one findAndModify with only the sent fields: no pre-read, and the catalog version is only bumped
+    // when a field lists/filters depend on changed (otherwise only the revision moves, which lists are keyed on)
+    @CacheEvict(value = "product_by_id", key = "#id")
+    public Product patchProduct(String id, Map<String, Object> fields) {
+        ProductPatch patch = ProductPatch.from(fields);
+        Query query = new Query(Criteria.where("id").is(id));
+        if (patch.getExpectedVersion() != null) {
+            query.addCriteria(Criteria.where("version").is(patch.getExpectedVersion()));
+        }
+        Product saved = productOutbox.write(() -> {
+            Product modified = mongoTemplate.findAndModify(query, patch.toUpdate(), FindAndModifyOptions.options().returnNew(true), Product.class);
+            if (modified != null) {
+                productOutbox.record(ProductEventType.UPDATED, id, modified);
+            }
+            return modified;
+        });
+        if (saved == null) {
+            if (patch.getExpectedVersion() != null && mongoTemplate.exists(new Query(Criteria.where("id").is(id)), Product.class)) {
+                throw new OptimisticLockingFailureException("Product " + id + " is no longer at version " + patch.getExpectedVersion());
+            }
+            log.error("Product not found with id: {}", id);
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+        if (patch.isCatalogChanged()) {
+            catalogVersion.bump();
+        } else {
+            catalogVersion.touch();
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(id, saved));
+        return saved;
+    }
+
+    @CacheEvict(value = "product_by_id", key = "#id")
     public void deleteProduct(String id) {
-        productRepository.deleteById(id);
+        productOutbox.write(() -> {
+            productRepository.deleteById(id);
+            productOutbox.record(ProductEventType.DELETED, id, null);
+            return null;
+        });
+        catalogVersion.bump();
+        eventPublisher.publishEvent(new ProductChangedEvent(id, null));
     }
 
-    public PagedResponseDTO<Product> getAllProductsPagedSorted(int page, int size, String sort) {
+    // the in-memory engine answers faster than a cache round trip, so pages are only cached on the Mongo path;
+    // the projection likewise only applies there, and is part of the cache key
+    @Cacheable(value = "products_page", sync = true, keyGenerator = "revisionKeyGenerator", condition = "!@catalogEngine.ready")
+    public PagedResponseDTO<Product> getAllProductsPagedSorted(int page, int size, String sort, ProductProjection projection) {
+        if (catalogEngine.isReady()) {
+            return catalogEngine.query(null, page, size, sort, true);
+        }
         Sort.Direction direction = sort.equalsIgnoreCase("DESC") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, "price"));
-        var pageProducts = productRepository.findAll(pageable);
+        Page<Product> pageProducts = projection.isAll()
+            ? productRepository.findAll(pageable)
+            : PageableExecutionUtils.getPage(
+                mongoTemplate.find(projection.applyTo(new Query().with(pageable)), Product.class),
+                pageable,
+                () -> mongoTemplate.count(new Query(), Product.class));
     
         return new PagedResponseDTO<>(
-            pageProducts.getContent(),
+            new ArrayList<>(pageProducts.getContent()), // Page content is unmodifiable and cannot be read back from the JSON cache
             page,
             size,
             pageProducts.getTotalElements(),
@@ -95,9 +250,25 @@ public class ProductService {
         );
     }    
 
-    public List<Product> searchProductsByName(String name, int page, int size) {
+    // served from the in-memory index once it is loaded; the unanchored regex always scans the collection
+    public List<Product> searchProductsByName(String name, int page, int size, ProductProjection projection) {
+        if (productSearchIndex.isReady()) {
+            return productSearchIndex.search(name, page, size);
+        }
         Pageable pageable = PageRequest.of(page, size);
-        return productRepository.findByNameContainingIgnoreCase(name, pageable);
+        if (projection.isAll()) {
+            return productRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+        Query query = new Query(Criteria.where("name").regex(Pattern.quote(name), "i")).with(pageable);
+        return mongoTemplate.find(projection.applyTo(query), Product.class);
+    }
+
+    public List<Product> autocomplete(String prefix, int limit) {
+        if (productSearchIndex.isReady()) {
+            return productSearchIndex.autocomplete(prefix, limit);
+        }
+        Query query = new Query(Criteria.where("name").regex("^" + Pattern.quote(prefix), "i")).limit(limit);
+        return mongoTemplate.find(query, Product.class);
     }
 
     public List<Product> filterProducts(String type, Double priceFrom, Double priceTo, int page, int size) {
@@ -114,32 +285,41 @@ public class ProductService {
         }
     }  
     
-    public PagedResponseDTO<Product> getFilteredProducts(ProductFilterInput filter, int page, int size, String sort) {
+    // includeTotals=false skips counting altogether, otherwise the configured CountMode decides how totals are obtained
+    @Cacheable(value = "products_page", sync = true, keyGenerator = "revisionKeyGenerator", condition = "!@catalogEngine.ready")
+    public PagedResponseDTO<Product> getFilteredProducts(ProductFilterInput filter, int page, int size, String sort, boolean includeTotals,
+                                                         ProductProjection projection) {
+        if (catalogEngine.isReady()) {
+            return catalogEngine.query(filter, page, size, sort, includeTotals);
+        }
+        CountMode countMode = includeTotals ? productCountService.getDefaultMode() : CountMode.HAS_NEXT;
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(sort), "price"));
-        Query query = new Query().with(pageable);
+        Query query = projection.applyTo(ProductQueries.filter(filter).with(pageable));
 
-        if (filter != null) {
-            if (filter.getTypes() != null && !filter.getTypes().isEmpty()) {
-                query.addCriteria(Criteria.where("type").in(filter.getTypes()));
-            }
-            if (filter.getFlavors() != null && !filter.getFlavors().isEmpty()) {
-                query.addCriteria(Criteria.where("flavor").in(filter.getFlavors()));
-            }
-            if (filter.getOnSale() != null) {
-                query.addCriteria(Criteria.where("onSale").is(filter.getOnSale()));
-            }
-            if (filter.getPriceFrom() != null && filter.getPriceTo() != null) {
-                query.addCriteria(Criteria.where("price").gte(filter.getPriceFrom()).lte(filter.getPriceTo()));
-            }
+        if (countMode == CountMode.HAS_NEXT) {
+            List<Product> products = mongoTemplate.find(query.limit(size + 1), Product.class);
+            boolean hasNext = products.size() > size;
+            return new PagedResponseDTO<>(
+                new ArrayList<>(hasNext ? products.subList(0, size) : products),
+                page,
+                size,
+                null,
+                null,
+                !hasNext
+            );
         }
 
         List<Product> products = mongoTemplate.find(query, Product.class);
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Product.class);
+        long total = switch (countMode) {
+            case CACHED -> productCountService.countCached(filter);
+            case ESTIMATED -> productCountService.countEstimated(filter, (long) (page + 1) * size + 1);
+            default -> productCountService.countExact(filter);
+        };
 
         Page<Product> pageProducts = new PageImpl<>(products, pageable, total);
 
         return new PagedResponseDTO<>(
-            pageProducts.getContent(),
+            new ArrayList<>(pageProducts.getContent()),
             page,
             size,
             pageProducts.getTotalElements(),
@@ -148,6 +328,82 @@ public class ProductService {
         );
     }
 
+    // keyset mode: cost does not depend on how deep the client has scrolled
+    @Cacheable(value = "products_page", sync = true, keyGenerator = "revisionKeyGenerator")
+    public ProductConnectionDTO getProductsConnection(ProductFilterInput filter, int first, String after, String sort) {
+        Sort.Direction direction = sort.equalsIgnoreCase("DESC") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        ProductCursor cursor = after != null ? ProductCursor.decode(after) : null;
+        Query query = ProductQueries.keyset(filter, cursor, direction, first + 1);
+
+        List<Product> products = mongoTemplate.find(query, Product.class);
+        boolean hasNextPage = products.size() > first;
+        List<ProductEdgeDTO> edges = products.stream()
+            .limit(first)
+            .map(product -> new ProductEdgeDTO(ProductCursor.of(product).encode(), product))
+            .collect(Collectors.toList());
+
+        return new ProductConnectionDTO(
+            edges,
+            new PageInfoDTO(
+                hasNextPage,
+                cursor != null,
+                edges.isEmpty() ? null : edges.get(0).getCursor(),
+                edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor())
+        );
+    }
+
+    // facet counts for the current filter in a single $facet round trip
+    @Cacheable(value = "products_facets", sync = true, keyGenerator = "catalogKeyGenerator")
+    public ProductFacetsDTO getFacets(ProductFilterInput filter) {
+        Sort byCount = Sort.by(Sort.Direction.DESC, "count").and(Sort.by(Sort.Direction.ASC, "_id"));
+        Aggregation aggregation = Aggregation.newAggregation(
+                ProductQueries.match(filter),
+                Aggregation.facet(Aggregation.count().as("count")).as("total")
+                        .and(Aggregation.group("type").count().as("count"), Aggregation.sort(byCount)).as("types")
+                        .and(Aggregation.group("flavor").count().as("count"), Aggregation.sort(byCount)).as("flavors")
+                        .and(Aggregation.group("onSale").count().as("count")).as("onSale")
+                        .and(Aggregation.bucket("price").withBoundaries((Object[]) PRICE_BOUNDARIES).withDefaultBucket("other")
+                                .andOutputCount().as("count")).as("priceBuckets"));
+
+        Document result = mongoTemplate.aggregate(aggregation, Product.class, Document.class).getUniqueMappedResult();
+        ProductFacetsDTO facets = new ProductFacetsDTO(0, new ArrayList<>(), new ArrayList<>(), 0, 0, emptyPriceBuckets());
+        if (result == null) {
+            return facets;
+        }
+        result.getList("total", Document.class, List.of()).forEach(d -> facets.setTotal(count(d)));
+        result.getList("types", Document.class, List.of()).forEach(d -> facets.getTypes().add(new FacetCountDTO(d.getString("_id"), count(d))));
+        result.getList("flavors", Document.class, List.of()).forEach(d -> facets.getFlavors().add(new FacetCountDTO(d.getString("_id"), count(d))));
+        for (Document d : result.getList("onSale", Document.class, List.of())) {
+            if (Boolean.TRUE.equals(d.get("_id"))) {
+                facets.setOnSale(facets.getOnSale() + count(d));
+            } else {
+                facets.setNotOnSale(facets.getNotOnSale() + count(d));
+            }
+        }
+        for (Document d : result.getList("priceBuckets", Document.class, List.of())) {
+            if (d.get("_id") instanceof Number from) {
+                facets.getPriceBuckets().stream()
+                        .filter(bucket -> bucket.getFrom() == from.doubleValue())
+                        .forEach(bucket -> bucket.setCount(count(d)));
+            }
+        }
+        return facets;
+    }
+
+    // $bucket only returns non-empty buckets; the UI always gets the full range
+    private static List<PriceBucketDTO> emptyPriceBuckets() {
+        List<PriceBucketDTO> buckets = new ArrayList<>();
+        for (int i = 0; i < PRICE_BOUNDARIES.length - 1; i++) {
+            Double to = i == PRICE_BOUNDARIES.length - 2 ? null : PRICE_BOUNDARIES[i + 1];
+            buckets.add(new PriceBucketDTO(PRICE_BOUNDARIES[i], to, 0));
+        }
+        return buckets;
+    }
+
+    private static long count(Document document) {
+        return ((Number) document.get("count")).longValue();
+    }
+
     public List<String> getAvailableFlavors() {
         return mongoTemplate.query(Product.class)
                 .distinct("flavor")
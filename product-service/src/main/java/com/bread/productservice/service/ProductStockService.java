@@ -0,0 +1,154 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.dto.StockItemDTO;
+import com.bread.productservice.dto.StockReservationDTO;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.exception.InsufficientStockException;
+import com.bread.productservice.exception.InvalidRequestException;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock changes as single conditional updates on the product document: the quantity guard and
+ * the {@code $inc} are applied by Mongo atomically, so concurrent checkouts never oversell and
+ * never overwrite each other, and no findById/save round trip is needed. Each change also
+ * increments {@code version}, so a concurrent {@code updateProduct} based on an older read fails
+ * its optimistic check instead of writing the old quantity back.
+ *
+ * <p>Quantity is not part of any filter, so the catalog version is not bumped: only the
+ * product_by_id entry is refreshed and a {@link ProductChangedEvent} keeps the in-memory
+ * read models current.
+ */
+@Service
+@Timed(value = "products.service", histogram = true)
+public class ProductStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductStockService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final CatalogVersion catalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductOutbox productOutbox;
+
+    public ProductStockService(MongoTemplate mongoTemplate, CacheManager cacheManager, CatalogVersion catalogVersion,
+                               ApplicationEventPublisher eventPublisher, ProductOutbox productOutbox) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+        this.catalogVersion = catalogVersion;
+        this.eventPublisher = eventPublisher;
+        this.productOutbox = productOutbox;
+    }
+
+    public Product reserveStock(String id, int quantity) {
+        requirePositive(quantity);
+        Query query = Query.query(Criteria.where("id").is(id).and("quantity").gte(quantity));
+        Product updated = productOutbox.write(() -> recorded(mongoTemplate.findAndModify(query, change(-quantity),
+                FindAndModifyOptions.options().returnNew(true), Product.class)));
+        if (updated == null) {
+            // guard failed: only now tell "no such product" from "not enough left"
+            if (!mongoTemplate.exists(Query.query(Criteria.where("id").is(id)), Product.class)) {
+                throw new RuntimeException("Product not found with id: " + id);
+            }
+            throw new InsufficientStockException(id, quantity);
+        }
+        changed(updated);
+        return updated;
+    }
+
+    public Product releaseStock(String id, int quantity) {
+        requirePositive(quantity);
+        Product updated = productOutbox.write(() -> recorded(mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)),
+                change(quantity), FindAndModifyOptions.options().returnNew(true), Product.class)));
+        if (updated == null) {
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+        changed(updated);
+        return updated;
+    }
+
+    /**
+     * Reserves every line of a cart or none: lines are reserved one by one and, when one fails,
+     * the ones already taken are released again. Repeated products are merged into one line.
+     */
+    public StockReservationDTO reserveStockBatch(List<StockItemDTO> items) {
+        Map<String, Integer> lines = merge(items);
+        List<Product> reserved = new ArrayList<>();
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            try {
+                reserved.add(reserveStock(line.getKey(), line.getValue()));
+            } catch (RuntimeException e) {
+                for (Product product : reserved) {
+                    releaseStock(product.getId(), lines.get(product.getId()));
+                }
+                log.info("Cart reservation of {} products failed at {}: {}", lines.size(), line.getKey(), e.getMessage());
+                return new StockReservationDTO(false, new ArrayList<>(), line.getKey(), e.getMessage());
+            }
+        }
+        return new StockReservationDTO(true, reserved, null, null);
+    }
+
+    public List<Product> releaseStockBatch(List<StockItemDTO> items) {
+        List<Product> released = new ArrayList<>();
+        merge(items).forEach((id, quantity) -> released.add(releaseStock(id, quantity)));
+        return released;
+    }
+
+    private static Update change(int delta) {
+        return new Update().inc("quantity", delta).inc("version", 1);
+    }
+
+    // outbox event in the same transaction as the stock change
+    private Product recorded(Product product) {
+        if (product != null) {
+            productOutbox.record(ProductEventType.STOCK_CHANGED, product.getId(), product);
+        }
+        return product;
+    }
+
+    private void changed(Product product) {
+        Cache cache = cacheManager.getCache("product_by_id");
+        if (cache != null) {
+            cache.put(product.getId(), product);
+        }
+        // facets and counts keep their cached entries (the catalog version stays); lists and ETags follow the revision
+        catalogVersion.touch();
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), product));
+    }
+
+    private static Map<String, Integer> merge(List<StockItemDTO> items) {
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        for (StockItemDTO item : items) {
+            requirePositive(item.getQuantity());
+            lines.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return lines;
+    }
+
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidRequestException("Quantity must be greater than 0, got " + quantity);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.search.ProductSearchIndex;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Non-blocking counterpart of the {@link ProductService} read path, active with the "reactive"
+ * profile. Cache keys and cached values are the same as the blocking methods of the same name,
+ * so both stacks share the products_page and product_by_id entries.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ProductCountService productCountService;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogEngine catalogEngine;
+    private final CacheManager cacheManager;
+
+    public ReactiveProductService(ReactiveMongoTemplate reactiveMongoTemplate, ProductCountService productCountService,
+                                  ProductSearchIndex productSearchIndex, CatalogEngine catalogEngine, CacheManager cacheManager) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.productCountService = productCountService;
+        this.productSearchIndex = productSearchIndex;
+        this.catalogEngine = catalogEngine;
+        this.cacheManager = cacheManager;
+    }
+
+    @Cacheable(value = "products_page", sync = true, keyGenerator = "revisionKeyGenerator", condition = "!@catalogEngine.ready")
+    public Mono<PagedResponseDTO<Product>> getAllProductsPagedSorted(int page, int size, String sort, ProductProjection projection) {
+        if (catalogEngine.isReady()) {
+            return Mono.just(catalogEngine.query(null, page, size, sort, true));
+        }
+        Sort.Direction direction = sort.equalsIgnoreCase("DESC") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, "price"));
+        Query query = projection.applyTo(new Query().with(pageable));
+        return page(query, pageable, reactiveMongoTemplate.count(new Query(), Product.class));
+    }
+
+    @Cacheable(value = "products_page", sync = true, keyGenerator = "revisionKeyGenerator", condition = "!@catalogEngine.ready")
+    public Mono<PagedResponseDTO<Product>> getFilteredProducts(ProductFilterInput filter, int page, int size, String sort, boolean includeTotals,
+                                                               ProductProjection projection) {
+        if (catalogEngine.isReady()) {
+            return Mono.just(catalogEngine.query(filter, page, size, sort, includeTotals));
+        }
+        CountMode countMode = includeTotals ? productCountService.getDefaultMode() : CountMode.HAS_NEXT;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(sort), "price"));
+        Query query = projection.applyTo(ProductQueries.filter(filter).with(pageable));
+
+        if (countMode == CountMode.HAS_NEXT) {
+            return reactiveMongoTemplate.find(query.limit(size + 1), Product.class)
+                .collectList()
+                .map(products -> {
+                    boolean hasNext = products.size() > size;
+                    return new PagedResponseDTO<>(
+                        new ArrayList<>(hasNext ? products.subList(0, size) : products), page, size, null, null, !hasNext);
+                });
+        }
+
+        // CACHED has no separate count cache here: the whole page, total included, is cached above
+        Query countQuery = ProductQueries.filter(filter);
+        Mono<Long> total = countMode == CountMode.ESTIMATED
+            ? (countQuery.getQueryObject().isEmpty()
+                ? reactiveMongoTemplate.estimatedCount(Product.class)
+                : reactiveMongoTemplate.count(countQuery.limit((int) Math.max(productCountService.getEstimateCap(), (long) (page + 1) * size + 1)), Product.class))
+            : reactiveMongoTemplate.count(countQuery, Product.class);
+        return page(query, pageable, total);
+    }
+
+    public Mono<List<Product>> searchProductsByName(String name, int page, int size, ProductProjection projection) {
+        if (productSearchIndex.isReady()) {
+            return Mono.just(productSearchIndex.search(name, page, size));
+        }
+        Query query = new Query(Criteria.where("name").regex(Pattern.quote(name), "i")).with(PageRequest.of(page, size));
+        return reactiveMongoTemplate.find(projection.applyTo(query), Product.class).collectList();
+    }
+
+    // async cache retrieve per id, then a single $in query for the misses
+    public Mono<Map<String, Product>> getProductsByIds(Collection<String> ids) {
+        Cache cache = cacheManager.getCache("product_by_id");
+        return Flux.fromIterable(new LinkedHashSet<>(ids))
+            .flatMap(id -> cached(cache, id).map(product -> Map.entry(id, product)))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+            .flatMap(found -> {
+                List<String> remaining = ids.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+                if (remaining.isEmpty()) {
+                    return Mono.just(found);
+                }
+                return reactiveMongoTemplate.find(new Query(Criteria.where("id").in(remaining)), Product.class)
+                    .doOnNext(product -> {
+                        found.put(product.getId(), product);
+                        if (cache != null) {
+                            cache.putIfAbsent(product.getId(), product); // a fill, not a write: not broadcast
+                        }
+                    })
+                    .then(Mono.just(found));
+            });
+    }
+
+    private Mono<PagedResponseDTO<Product>> page(Query query, Pageable pageable, Mono<Long> total) {
+        return Mono.zip(reactiveMongoTemplate.find(query, Product.class).collectList(), total)
+            .map(result -> {
+                long totalElements = result.getT2();
+                int totalPages = pageable.getPageSize() == 0 ? 1 : (int) Math.ceil((double) totalElements / pageable.getPageSize());
+                return new PagedResponseDTO<>(
+                    new ArrayList<>(result.getT1()),
+                    pageable.getPageNumber(),
+                    pageable.getPageSize(),
+                    totalElements,
+                    totalPages,
+                    pageable.getPageNumber() + 1 >= totalPages
+                );
+            });
+    }
+
+    private static Mono<Product> cached(Cache cache, String id) {
+        CompletableFuture<?> future = cache != null ? cache.retrieve(id) : null;
+        if (future == null) {
+            return Mono.empty();
+        }
+        return Mono.fromFuture(future).flatMap(value -> {
+            Object product = value instanceof Cache.ValueWrapper wrapper ? wrapper.get() : value;
+            return product instanceof Product found ? Mono.just(found) : Mono.empty();
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.bread.productservice.cache;
+
+import com.bread.productservice.dto.FacetCountDTO;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFacetsDTO;
+import com.bread.productservice.model.Product;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheCodecTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final ProductCacheCodec codec = new ProductCacheCodec(json, true, 1024);
+
+    @Test
+    void shouldRoundTripProductsIncludingNullFields() {
+        Product partial = new Product("2", "Dona", null, null, null, null, "VEGAN", true, null, null); // projected read
+
+        assertEquals(product("1"), codec.deserialize(codec.serialize(product("1"))));
+        assertEquals(partial, codec.deserialize(codec.serialize(partial)));
+        Product versioned = product("3");
+        versioned.setVersion(7L);
+        assertEquals(versioned, codec.deserialize(codec.serialize(versioned)));
+        assertSame(NullValue.INSTANCE, codec.deserialize(codec.serialize(NullValue.INSTANCE)));
+        assertEquals(42L, codec.deserialize(codec.serialize(42L)));
+    }
+
+    @Test
+    void shouldCompressLargeListsAndPages() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(product(Integer.toString(i)));
+        }
+        PagedResponseDTO<Product> page = new PagedResponseDTO<>(products, 3, 200, 5000L, null, false);
+
+        byte[] encoded = codec.serialize(products);
+        byte[] uncompressed = new ProductCacheCodec(json, true, -1).serialize(products);
+
+        assertEquals(ProductCacheCodec.MAGIC, encoded[0]);
+        assertTrue(encoded.length < uncompressed.length / 2, encoded.length + " vs " + uncompressed.length);
+        assertTrue(uncompressed.length < json.serialize(products).length / 2);
+        assertEquals(products, codec.deserialize(encoded));
+        assertEquals(page, codec.deserialize(codec.serialize(page)));
+    }
+
+    @Test
+    void shouldFallBackToJsonForOtherValues() {
+        ProductFacetsDTO facets = new ProductFacetsDTO(3, new ArrayList<>(List.of(new FacetCountDTO("VEGAN", 3))),
+                new ArrayList<>(), 1, 2, new ArrayList<>());
+
+        assertEquals(facets, codec.deserialize(codec.serialize(facets)));
+    }
+
+    @Test
+    void shouldReadJsonWrittenBeforeTheSwitch() {
+        assertEquals(product("1"), codec.deserialize(json.serialize(product("1"))));
+        // json mode: readable by nodes that only know the JSON serializer
+        assertEquals(product("1"), json.deserialize(new ProductCacheCodec(json, false, 1024).serialize(product("1"))));
+    }
+
+    @Test
+    void shouldTreatUnknownFormatVersionAsMiss() {
+        byte[] encoded = codec.serialize(product("1"));
+        encoded[1] = ProductCacheCodec.FORMAT_VERSION + 1;
+
+        assertNull(codec.deserialize(encoded));
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "Concha " + id, "Pan dulce con cubierta de azúcar", 12.5, 10, "http://img.jpg/" + id,
+                "GLUTEN", false, "VAINILLA", 0.0);
+    }
+}
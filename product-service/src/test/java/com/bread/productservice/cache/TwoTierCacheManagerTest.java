@@ -0,0 +1,260 @@
+package com.bread.productservice.cache;
+
+import com.bread.productservice.model.Product;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoTierCacheManagerTest {
+
+    // ConcurrentMapCacheManager stands in for the shared Redis tier, the local bus for pub/sub
+    private ConcurrentMapCacheManager redis;
+    private TwoTierCacheManager nodeA;
+    private TwoTierCacheManager nodeB;
+
+    private Product sampleProduct;
+
+    @BeforeEach
+    void setUp() {
+        redis = new ConcurrentMapCacheManager();
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        nodeA = new TwoTierCacheManager(redis, bus, 100, Duration.ofMinutes(1));
+        nodeB = new TwoTierCacheManager(redis, bus, 100, Duration.ofMinutes(1));
+        sampleProduct = new Product("1", "Croissant", "Pan hojaldrado", 25.0, 10, "http://imgUrl.jpg", "GLUTEN", false, "MANTEQUILLA", 0.0);
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromLocalTier() {
+        Cache cache = nodeA.getCache("product_by_id");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("1", () -> { loads.incrementAndGet(); return sampleProduct; });
+        Product cached = cache.get("1", () -> { loads.incrementAndGet(); return sampleProduct; });
+
+        assertSame(sampleProduct, cached);
+        assertEquals(1, loads.get());
+        TwoTierCache twoTier = (TwoTierCache) cache;
+        assertEquals(1, twoTier.getStats().getL1Hits());
+        assertEquals(1, twoTier.getStats().getL2Misses());
+    }
+
+    @Test
+    void shouldPublishStatsOfCachesCreatedAfterBinding() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new TwoTierCacheMetrics(nodeA).bindTo(registry);
+
+        Cache cache = nodeA.getCache("product_by_id");
+        cache.get("1", () -> sampleProduct);
+        cache.get("1", () -> sampleProduct);
+        cache.evict("1");
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "product_by_id", "tier", "l1", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "product_by_id", "tier", "l2", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.evictions").tags("cache", "product_by_id", "cause", "write").functionCounter().count());
+        FunctionTimer loads = registry.get("cache.loads").tags("cache", "product_by_id").functionTimer();
+        assertEquals(1, loads.count());
+        assertTrue(loads.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void shouldFillLocalTierFromRemoteOnOtherNode() {
+        nodeA.getCache("product_by_id").put("1", sampleProduct);
+
+        TwoTierCache cacheB = (TwoTierCache) nodeB.getCache("product_by_id");
+        assertNotNull(cacheB.get("1"));
+        assertNotNull(cacheB.get("1"));
+
+        assertEquals(1, cacheB.getStats().getL2Hits());
+        assertEquals(1, cacheB.getStats().getL1Hits());
+    }
+
+    @Test
+    void shouldDropLocalEntriesOnOtherNodesWhenEvicted() {
+        nodeA.getCache("product_by_id").put("1", sampleProduct);
+        TwoTierCache cacheB = (TwoTierCache) nodeB.getCache("product_by_id");
+        cacheB.get("1");
+        assertEquals(1, cacheB.getLocalSize());
+
+        nodeA.getCache("product_by_id").evict("1");
+
+        assertNull(cacheB.get("1"));
+        assertEquals(1, cacheB.getStats().getRemoteInvalidations());
+    }
+
+    @Test
+    void shouldDropSeveralKeysOnOtherNodesWithOneMessage() {
+        TwoTierCache cacheA = (TwoTierCache) nodeA.getCache("product_by_id");
+        TwoTierCache cacheB = (TwoTierCache) nodeB.getCache("product_by_id");
+        for (String id : List.of("1", "2", "3")) {
+            cacheA.put(id, sampleProduct);
+            cacheB.get(id);
+        }
+        assertEquals(3, cacheB.getLocalSize());
+        long invalidationsBefore = cacheB.getStats().getRemoteInvalidations();
+
+        cacheA.evictAll(List.of("1", "2"));
+
+        assertNull(cacheB.get("1"));
+        assertNull(cacheB.get("2"));
+        assertNotNull(cacheB.get("3"));
+        assertEquals(invalidationsBefore + 1, cacheB.getStats().getRemoteInvalidations());
+    }
+
+    @Test
+    void shouldBroadcastWritesButNotReadMissFills() {
+        List<CacheInvalidation> published = new ArrayList<>();
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        bus.subscribe(published::add);
+        Cache cache = new TwoTierCacheManager(redis, bus, 100, Duration.ofMinutes(1)).getCache("product_by_id");
+
+        cache.get("1", () -> sampleProduct);
+        cache.putIfAbsent("2", sampleProduct);
+        assertTrue(published.isEmpty());
+        assertNotNull(nodeB.getCache("product_by_id").get("2"));
+
+        cache.put("1", sampleProduct);
+        assertEquals(List.of("1"), published.get(0).keys());
+    }
+
+    @Test
+    void shouldClearLocalEntriesOnOtherNodes() {
+        nodeB.getCache("products_list").put("a", sampleProduct);
+        nodeB.getCache("products_list").get("a");
+
+        nodeA.getCache("products_list").clear();
+
+        assertNull(nodeB.getCache("products_list").get("a"));
+    }
+
+    @Test
+    void shouldCacheNullValues() {
+        Cache cache = nodeA.getCache("product_by_id");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("missing", () -> { loads.incrementAndGet(); return null; });
+        Object second = cache.get("missing", () -> { loads.incrementAndGet(); return null; });
+
+        assertNull(second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldMultiGetAcrossBothTiers() {
+        nodeA.getCache("product_by_id").put("1", sampleProduct);
+        nodeA.getCache("product_by_id").put("2", sampleProduct);
+        TwoTierCache cacheB = (TwoTierCache) nodeB.getCache("product_by_id");
+        cacheB.get("1");
+
+        Map<Object, Cache.ValueWrapper> found = cacheB.getAll(List.of("1", "2", "3"));
+
+        assertEquals(2, found.size());
+        assertSame(sampleProduct, found.get("2").get());
+        assertEquals(1, cacheB.getStats().getL1Hits());
+        assertEquals(2, cacheB.getStats().getL2Hits());
+        assertEquals(1, cacheB.getStats().getL2Misses());
+    }
+
+    @Test
+    void shouldRetrieveAsynchronouslyAndFillLocalTier() {
+        nodeA.getCache("product_by_id").put("1", sampleProduct);
+        TwoTierCache cacheB = (TwoTierCache) nodeB.getCache("product_by_id");
+
+        Object remote = cacheB.retrieve("1").join();
+        Object local = cacheB.retrieve("1").join();
+
+        assertSame(sampleProduct, ((Cache.ValueWrapper) remote).get());
+        assertSame(sampleProduct, ((Cache.ValueWrapper) local).get());
+        assertEquals(1, cacheB.getStats().getL2Hits());
+        assertEquals(1, cacheB.getStats().getL1Hits());
+        assertEquals("loaded", cacheB.retrieve("2", () -> java.util.concurrent.CompletableFuture.completedFuture("loaded")).join());
+        assertEquals("loaded", nodeA.getCache("product_by_id").get("2").get());
+    }
+
+    @Test
+    void shouldLoadOnceForConcurrentMissesAcrossNodes() throws Exception {
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        LoadProtection protection = new LoadProtection(new LocalLoadLease(), Duration.ofSeconds(5), null, 0, Runnable::run);
+        List<Cache> nodes = List.of(
+                new TwoTierCacheManager(redis, RemoteMultiGet.PER_KEY, bus, 100, Duration.ofMinutes(1), protection, "a").getCache("product_by_id"),
+                new TwoTierCacheManager(redis, RemoteMultiGet.PER_KEY, bus, 100, Duration.ofMinutes(1), protection, "b").getCache("product_by_id"));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<Product> slowLoad = () -> {
+            loads.incrementAndGet();
+            Thread.sleep(200);
+            return sampleProduct;
+        };
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Product>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Cache node = nodes.get(i % 2);
+            results.add(executor.submit(() -> {
+                start.await();
+                return node.get("1", slowLoad);
+            }));
+        }
+        start.countDown();
+        for (Future<Product> result : results) {
+            assertSame(sampleProduct, result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        TwoTierCache nodeWithLease = (TwoTierCache) nodes.get(0);
+        TwoTierCache otherNode = (TwoTierCache) nodes.get(1);
+        assertEquals(1, nodeWithLease.getStats().getLoads() + otherNode.getStats().getLoads());
+        assertEquals(1, nodeWithLease.getStats().getLeaseWaits() + otherNode.getStats().getLeaseWaits());
+    }
+
+    @Test
+    void shouldRefreshHotEntryBeforeItExpires() throws Exception {
+        // 1ms remote TTL: the next hit is always past the XFetch threshold; refresh runs inline
+        LoadProtection protection = new LoadProtection(LoadLease.NONE, Duration.ZERO, name -> Duration.ofMillis(1), 1.0, Runnable::run);
+        TwoTierCache cache = (TwoTierCache) new TwoTierCacheManager(redis, RemoteMultiGet.PER_KEY, new LocalCacheInvalidationBus(),
+                100, Duration.ofMinutes(1), protection, "a").getCache("product_by_id");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("1", () -> { loads.incrementAndGet(); return sampleProduct; });
+        Thread.sleep(5);
+        Product served = cache.get("1", () -> { loads.incrementAndGet(); return sampleProduct; });
+
+        assertSame(sampleProduct, served);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().getEarlyRefreshes());
+    }
+
+    @Test
+    void shouldKeepServingWhenTheRefreshExecutorIsFull() throws Exception {
+        Executor full = task -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        LoadProtection protection = new LoadProtection(LoadLease.NONE, Duration.ZERO, name -> Duration.ofMillis(1), 1.0, full);
+        TwoTierCache cache = (TwoTierCache) new TwoTierCacheManager(redis, RemoteMultiGet.PER_KEY, new LocalCacheInvalidationBus(),
+                100, Duration.ofMinutes(1), protection, "a").getCache("product_by_id");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("1", () -> { loads.incrementAndGet(); return sampleProduct; });
+        Thread.sleep(5);
+        Product served = cache.get("1", () -> { loads.incrementAndGet(); return sampleProduct; });
+
+        // the refresh is shed, the cached value is still served
+        assertSame(sampleProduct, served);
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,162 @@
+package com.bread.productservice.catalog;
+
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.model.Flavor;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductType;
+import com.bread.productservice.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogEngineTest {
+
+    private CatalogEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new CatalogEngine(null, true);
+        engine.load(List.of(
+                product("1", 25.0, "GLUTEN", "MANTEQUILLA", false),
+                product("2", 12.0, "gluten", "CHOCOLATE", true),
+                product("3", 40.0, "VEGAN", "CHOCOLATE", false),
+                product("4", 12.0, "KETO", "NUEZ", true),
+                product("5", 60.0, "VEGAN", "CANELA", true)));
+    }
+
+    @Test
+    void shouldPageWholeCatalogByPrice() {
+        PagedResponseDTO<Product> first = engine.query(null, 0, 2, "ASC", true);
+        assertEquals(List.of("2", "4"), ids(first));
+        assertEquals(5L, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        assertFalse(first.isLast());
+
+        PagedResponseDTO<Product> last = engine.query(null, 2, 2, "ASC", true);
+        assertEquals(List.of("5"), ids(last));
+        assertTrue(last.isLast());
+    }
+
+    @Test
+    void shouldSortDescending() {
+        assertEquals(List.of("5", "3", "1"), ids(engine.query(null, 0, 3, "DESC", true)));
+    }
+
+    @Test
+    void shouldCombineFacetsAndPriceRange() {
+        ProductFilterInput filter = new ProductFilterInput();
+        filter.setTypes(List.of(ProductType.GLUTEN, ProductType.VEGAN));
+        filter.setFlavors(List.of(Flavor.CHOCOLATE));
+        filter.setPriceFrom(10.0);
+        filter.setPriceTo(40.0);
+
+        PagedResponseDTO<Product> result = engine.query(filter, 0, 10, "ASC", true);
+
+        assertEquals(List.of("2", "3"), ids(result));
+        assertEquals(2L, result.getTotalElements());
+    }
+
+    @Test
+    void shouldFilterOnSaleAndEmptyRanges() {
+        ProductFilterInput onSale = new ProductFilterInput();
+        onSale.setOnSale(true);
+        assertEquals(List.of("2", "4", "5"), ids(engine.query(onSale, 0, 10, "ASC", true)));
+
+        ProductFilterInput noPrices = new ProductFilterInput();
+        noPrices.setPriceFrom(41.0);
+        noPrices.setPriceTo(59.0);
+        PagedResponseDTO<Product> empty = engine.query(noPrices, 0, 10, "ASC", true);
+        assertTrue(empty.getContent().isEmpty());
+        assertEquals(0L, empty.getTotalElements());
+        assertTrue(empty.isLast());
+    }
+
+    @Test
+    void shouldApplyMutationsOnNextRead() {
+        engine.onProductChanged(new ProductChangedEvent("3", null));
+        engine.onProductChanged(new ProductChangedEvent("6", product("6", 1.0, "KETO", "FRESA", false)));
+        engine.onProductChanged(new ProductChangedEvent("1", product("1", 99.0, "GLUTEN", "MANTEQUILLA", false)));
+
+        assertEquals(List.of("6", "2", "4", "5", "1"), ids(engine.query(null, 0, 10, "ASC", true)));
+    }
+
+    @Test
+    void shouldMatchFullRebuildAfterManyIncrementalChanges() {
+        String[] types = { "GLUTEN", "VEGAN", "KETO", "GLUTEN_FREE" };
+        String[] flavors = { "CHOCOLATE", "NUEZ", "FRESA", "CANELA" };
+        Random random = new Random(7);
+        Map<String, Product> expected = new HashMap<>();
+        engine.load(List.of());
+        for (int i = 0; i < 2000; i++) {
+            String id = String.valueOf(random.nextInt(300));
+            if (random.nextInt(4) == 0) {
+                expected.remove(id);
+                engine.onProductChanged(new ProductChangedEvent(id, null));
+            } else {
+                Product product = product(id, random.nextInt(50), types[random.nextInt(4)], flavors[random.nextInt(4)], random.nextBoolean());
+                expected.put(id, product);
+                engine.onProductChanged(new ProductChangedEvent(id, product));
+            }
+        }
+        CatalogEngine rebuilt = new CatalogEngine(null, true);
+        rebuilt.load(expected.values());
+
+        ProductFilterInput filter = new ProductFilterInput();
+        filter.setTypes(List.of(ProductType.VEGAN, ProductType.KETO));
+        filter.setFlavors(List.of(Flavor.NUEZ));
+        filter.setOnSale(true);
+        filter.setPriceFrom(10.0);
+        filter.setPriceTo(40.0);
+        for (ProductFilterInput each : Arrays.asList(null, filter)) {
+            PagedResponseDTO<Product> incremental = engine.query(each, 0, 500, "ASC", true);
+            PagedResponseDTO<Product> full = rebuilt.query(each, 0, 500, "ASC", true);
+            assertEquals(ids(full), ids(incremental));
+            assertEquals(full.getTotalElements(), incremental.getTotalElements());
+        }
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileTheCatalogIsRead() {
+        ProductRepository repository = mock(ProductRepository.class);
+        CatalogEngine loading = new CatalogEngine(repository, true);
+        when(repository.findAll()).thenAnswer(inv -> {
+            // written while the read runs: the read already returned 1 at its old price, and has no 7
+            loading.onProductChanged(new ProductChangedEvent("1", product("1", 5.0, "GLUTEN", "MANTEQUILLA", false)));
+            loading.onProductChanged(new ProductChangedEvent("7", product("7", 8.0, "KETO", "NUEZ", false)));
+            loading.onProductChanged(new ProductChangedEvent("3", null));
+            return List.of(product("1", 25.0, "GLUTEN", "MANTEQUILLA", false), product("3", 40.0, "VEGAN", "CHOCOLATE", false));
+        });
+
+        loading.loadOnStartup();
+
+        assertEquals(List.of("1", "7"), ids(loading.query(null, 0, 10, "ASC", true)));
+        assertEquals(5.0, loading.query(null, 0, 1, "ASC", true).getContent().get(0).getPrice());
+    }
+
+    @Test
+    void shouldOmitTotalsWhenNotRequested() {
+        PagedResponseDTO<Product> result = engine.query(null, 0, 2, "ASC", false);
+        assertNull(result.getTotalElements());
+        assertNull(result.getTotalPages());
+        assertFalse(result.isLast());
+    }
+
+    private static List<String> ids(PagedResponseDTO<Product> page) {
+        return page.getContent().stream().map(Product::getId).toList();
+    }
+
+    private static Product product(String id, double price, String type, String flavor, boolean onSale) {
+        return new Product(id, "Pan " + id, "Pan", price, 5, "http://img.jpg", type, onSale, flavor, 0.0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bread.productservice.config;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphQlDocumentCacheTest {
+
+    private static final String QUERY = "{ getAvailableFlavors }";
+
+    private final GraphQlDocumentCache cache = new GraphQlDocumentCache(100);
+    private final AtomicInteger parses = new AtomicInteger();
+    private final Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate = input -> {
+        parses.incrementAndGet();
+        return new PreparsedDocumentEntry(Parser.parse(input.getQuery()));
+    };
+
+    @Test
+    void shouldParseEachDistinctQueryOnce() {
+        PreparsedDocumentEntry first = cache.getDocumentAsync(ExecutionInput.newExecutionInput(QUERY).build(), parseAndValidate).join();
+        PreparsedDocumentEntry second = cache.getDocumentAsync(ExecutionInput.newExecutionInput(QUERY).build(), parseAndValidate).join();
+
+        assertSame(first, second);
+        assertEquals(1, parses.get());
+        assertSame(first.getDocument(), cache.parse(QUERY));
+    }
+
+    @Test
+    void shouldRegisterPersistedHashOnFirstUseAndServeItWithoutText() {
+        String hash = GraphQlDocumentCache.hash(QUERY);
+        PreparsedDocumentEntry unknown = cache.getDocumentAsync(persisted(GraphQlDocumentCache.PERSISTED_QUERY_MARKER, hash), parseAndValidate).join();
+        assertEquals("PersistedQueryNotFound", unknown.getErrors().get(0).getMessage());
+        assertEquals("PERSISTED_QUERY_NOT_FOUND", unknown.getErrors().get(0).getExtensions().get("code"));
+
+        PreparsedDocumentEntry registered = cache.getDocumentAsync(persisted(QUERY, hash.toUpperCase()), parseAndValidate).join();
+        PreparsedDocumentEntry byHash = cache.getDocumentAsync(persisted(GraphQlDocumentCache.PERSISTED_QUERY_MARKER, hash), parseAndValidate).join();
+
+        assertFalse(registered.hasErrors());
+        assertSame(registered, byHash);
+        assertEquals(1, parses.get());
+        assertSame(registered.getDocument(), cache.document(hash));
+    }
+
+    @Test
+    void shouldRejectHashThatIsNotTheQuerys() {
+        String otherHash = GraphQlDocumentCache.hash("{ getAvailableTypes }");
+
+        PreparsedDocumentEntry entry = cache.getDocumentAsync(persisted(QUERY, otherHash), parseAndValidate).join();
+
+        assertEquals("PERSISTED_QUERY_HASH_MISMATCH", entry.getErrors().get(0).getExtensions().get("code"));
+        assertEquals(0, parses.get());
+        assertNull(cache.document(otherHash));
+    }
+
+    @Test
+    void shouldNotKeepDocumentsThatFailedValidation() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse("type Query { getAvailableFlavors: [String] }"),
+                RuntimeWiring.newRuntimeWiring()
+                        .type("Query", type -> type.dataFetcher("getAvailableFlavors", env -> List.of("FRESA")))
+                        .build());
+        GraphQL graphQl = GraphQL.newGraphQL(schema).preparsedDocumentProvider(cache).build();
+
+        ExecutionResult invalid = graphQl.execute("{ unknownField }");
+        ExecutionResult valid = graphQl.execute(persisted(QUERY, GraphQlDocumentCache.hash(QUERY)));
+        ExecutionResult byHash = graphQl.execute(persisted(GraphQlDocumentCache.PERSISTED_QUERY_MARKER, GraphQlDocumentCache.hash(QUERY)));
+
+        assertFalse(invalid.getErrors().isEmpty());
+        assertNull(cache.document(GraphQlDocumentCache.hash("{ unknownField }")));
+        assertTrue(valid.getErrors().isEmpty());
+        assertEquals(valid.<Map<String, Object>>getData(), byHash.getData());
+    }
+
+    private static ExecutionInput persisted(String query, String hash) {
+        return ExecutionInput.newExecutionInput(query)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+                .build();
+    }
+}
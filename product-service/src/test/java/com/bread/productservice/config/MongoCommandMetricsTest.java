@@ -0,0 +1,54 @@
+package com.bread.productservice.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoCommandMetricsTest {
+
+    private final ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    @Test
+    void shouldTimeCommandsAndCountReturnedDocuments() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MongoCommandMetrics metrics = new MongoCommandMetrics(registry);
+
+        metrics.commandStarted(new CommandStartedEvent(null, 1, 7, connection, "productdb", "find",
+                BsonDocument.parse("{find: 'products', filter: {type: 'GLUTEN'}}")));
+        metrics.commandSucceeded(new CommandSucceededEvent(null, 1, 7, connection, "productdb", "find",
+                BsonDocument.parse("{cursor: {id: 0, ns: 'productdb.products', firstBatch: [{_id: 1}, {_id: 2}, {_id: 3}]}, ok: 1}"),
+                TimeUnit.MILLISECONDS.toNanos(4)));
+
+        Timer timer = registry.get("mongodb.commands").tags("command", "find", "collection", "products", "status", "SUCCESS").timer();
+        assertEquals(1, timer.count());
+        assertEquals(4, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        DistributionSummary documents = registry.get("mongodb.commands.documents").tags("command", "find").summary();
+        assertEquals(3, documents.totalAmount());
+    }
+
+    @Test
+    void shouldFindCollectionAndCountOfEachCommandShape() {
+        assertEquals("products", MongoCommandMetrics.collection("getMore",
+                BsonDocument.parse("{getMore: NumberLong(42), collection: 'products'}")));
+        assertNull(MongoCommandMetrics.collection("ping", BsonDocument.parse("{ping: 1}")));
+
+        assertEquals(2, MongoCommandMetrics.documentCount(BsonDocument.parse("{cursor: {id: 0, nextBatch: [{}, {}]}, ok: 1}")));
+        assertEquals(5, MongoCommandMetrics.documentCount(BsonDocument.parse("{n: 5, nModified: 5, ok: 1}")));
+        assertEquals(0, MongoCommandMetrics.documentCount(BsonDocument.parse("{lastErrorObject: {n: 0}, value: null, ok: 1}")));
+        assertEquals(-1, MongoCommandMetrics.documentCount(BsonDocument.parse("{ok: 1}")));
+    }
+}
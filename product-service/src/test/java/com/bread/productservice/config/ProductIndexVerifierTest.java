@@ -0,0 +1,45 @@
+package com.bread.productservice.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductIndexVerifierTest {
+
+    @Test
+    void shouldDetectCollScanInWinningPlan() {
+        Document explain = new Document("queryPlanner", new Document()
+                .append("winningPlan", new Document("stage", "SORT")
+                        .append("inputStage", new Document("stage", "COLLSCAN")))
+                .append("rejectedPlans", List.of()));
+
+        assertTrue(ProductIndexVerifier.containsCollScan(explain));
+    }
+
+    @Test
+    void shouldIgnoreCollScanInRejectedPlans() {
+        Document explain = new Document("queryPlanner", new Document()
+                .append("winningPlan", new Document("stage", "FETCH")
+                        .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "type_price")))
+                .append("rejectedPlans", List.of(new Document("stage", "COLLSCAN"))));
+
+        assertFalse(ProductIndexVerifier.containsCollScan(explain));
+    }
+
+    @Test
+    void shouldDetectCollScanInsideMergedPlans() {
+        Document explain = new Document("queryPlanner", new Document("winningPlan",
+                new Document("queryPlan", new Document("stage", "SORT_MERGE")
+                        .append("inputStages", List.of(new Document("stage", "IXSCAN"), new Document("stage", "COLLSCAN"))))));
+
+        assertTrue(ProductIndexVerifier.containsCollScan(explain));
+    }
+
+    @Test
+    void shouldBuildEveryQueryShape() {
+        ProductIndexVerifier.queryShapes().forEach((name, query) -> assertNotNull(query.getQueryObject(), name));
+    }
+}
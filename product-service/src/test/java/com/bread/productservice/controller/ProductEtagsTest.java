@@ -0,0 +1,69 @@
+package com.bread.productservice.controller;
+
+import com.bread.productservice.cache.CacheTtlPolicy;
+import com.bread.productservice.cache.LocalCatalogVersion;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.model.Product;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductEtagsTest {
+
+    private final LocalCatalogVersion catalogVersion = new LocalCatalogVersion();
+    private final ProductEtags etags = new ProductEtags(catalogVersion, Duration.ZERO, 100,
+            new CacheTtlPolicy(Duration.ofMinutes(10), Map.of(), 0));
+
+    @Test
+    void shouldMatchIfNoneMatchWeaklyAcrossLists() {
+        assertTrue(ProductEtags.matches("\"v3\"", "\"v3\""));
+        assertTrue(ProductEtags.matches("W/\"v3\"", "\"v3\""));
+        assertTrue(ProductEtags.matches("\"v1\", W/\"v3\"", "\"v3\""));
+        assertTrue(ProductEtags.matches("*", "\"v3\""));
+        assertFalse(ProductEtags.matches("\"v2\"", "\"v3\""));
+        assertFalse(ProductEtags.matches(null, "\"v3\""));
+        assertFalse(ProductEtags.matches("*", null));
+    }
+
+    @Test
+    void shouldKeepTheHighestVersionSeenAndForgetDeletedProducts() {
+        assertNull(etags.knownProduct("1"));
+
+        etags.onProductChanged(new ProductChangedEvent("1", product("1", 4L)));
+        assertEquals("\"v3\"", etags.product(product("1", 3L))); // served from a stale copy
+        assertEquals("\"v4\"", etags.knownProduct("1"));
+
+        etags.onProductChanged(new ProductChangedEvent("1", null));
+        assertNull(etags.knownProduct("1"));
+    }
+
+    @Test
+    void shouldForgetVersionsWithTheProductCache() throws Exception {
+        ProductEtags shortLived = new ProductEtags(catalogVersion, Duration.ZERO, 100,
+                new CacheTtlPolicy(Duration.ofMinutes(10), Map.of("product-by-id", Duration.ofMillis(1)), 0));
+
+        shortLived.product(product("1", 3L));
+        Thread.sleep(5);
+
+        // an edit made outside the service may have gone unnoticed: read the product again
+        assertNull(shortLived.knownProduct("1"));
+    }
+
+    @Test
+    void shouldTagQueriesWithTheCatalogRevision() {
+        String before = etags.catalog();
+        catalogVersion.touch();
+        assertNotEquals(before, etags.catalog());
+        assertEquals("no-cache, public", etags.cacheControl().getHeaderValue());
+    }
+
+    private static Product product(String id, Long version) {
+        Product product = new Product(id, "Concha", "Pan dulce", 12.5, 10, "http://img.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        product.setVersion(version);
+        return product;
+    }
+}
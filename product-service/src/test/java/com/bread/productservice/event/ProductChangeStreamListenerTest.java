@@ -0,0 +1,155 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.cache.LocalCacheInvalidationBus;
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.search.ProductSearchIndex;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductChangeStreamListenerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ResumeTokenStore resumeTokenStore;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CatalogEngine catalogEngine;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    private Cache productById;
+    private ProductChangeStreamListener listener;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(new ConcurrentMapCacheManager(), new LocalCacheInvalidationBus(),
+                100, Duration.ofMinutes(1));
+        productById = cacheManager.getCache("product_by_id");
+        when(catalogVersion.claim(anyCollection())).thenReturn(true);
+        listener = new ProductChangeStreamListener(mongoTemplate, resumeTokenStore, cacheManager, catalogVersion, eventPublisher,
+                catalogEngine, productSearchIndex, "products", "node-a", 500, Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldEvictAndPublishChangesMadeOutsideTheService() {
+        ObjectId id = new ObjectId();
+        productById.put(id.toHexString(), new Product());
+        productById.put("b", new Product());
+        Document replaced = new Document("_id", id).append("name", "Concha").append("price", 12.0).append("quantity", 3);
+
+        boolean resumable = listener.apply(List.of(
+                change(OperationType.REPLACE, new BsonObjectId(id), replaced, null),
+                change(OperationType.DELETE, new BsonString("b"), null, null)));
+
+        assertTrue(resumable);
+        assertNull(productById.get(id.toHexString()));
+        assertNull(productById.get("b"));
+        verify(catalogVersion, times(1)).bump();
+        verify(eventPublisher).publishEvent(argThat((ProductChangedEvent event) ->
+                event.productId().equals(id.toHexString()) && "Concha".equals(event.product().getName())));
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("b", null));
+    }
+
+    @Test
+    void shouldKeepCatalogVersionForUpdatesOutsideFilterFields() {
+        UpdateDescription stockOnly = new UpdateDescription(List.of(), new BsonDocument("quantity", new BsonInt32(2)));
+
+        listener.apply(List.of(change(OperationType.UPDATE, new BsonString("a"), new Document("_id", "a"), stockOnly)));
+
+        verify(catalogVersion, never()).bump();
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void shouldLeaveTheCatalogVersionToTheNodeThatClaimedTheChange() {
+        productById.put("a", new Product());
+        ChangeStreamDocument<Document> deleted = change(OperationType.DELETE, new BsonString("a"), null, null);
+        when(catalogVersion.claim(anyCollection())).thenReturn(false);
+
+        listener.apply(List.of(deleted));
+
+        // still refreshed locally, only the shared counters are left alone
+        assertNull(productById.get("a"));
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("a", null));
+        verify(catalogVersion).claim(List.of(deleted.getResumeToken().getString("_data").getValue()));
+        verify(catalogVersion, never()).bump();
+        verify(catalogVersion, never()).touch();
+    }
+
+    @Test
+    void shouldRebuildEverythingWhenCollectionIsDropped() {
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(mongoTemplate.getDb()).thenReturn(database);
+        when(database.runCommand(any(Bson.class), eq(BsonDocument.class)))
+                .thenReturn(new BsonDocument("ok", new BsonInt32(1)).append("operationTime", new BsonTimestamp(42, 1)));
+        productById.put("a", new Product());
+
+        boolean resumable = listener.apply(List.of(change(OperationType.DROP, null, null, null)));
+
+        assertFalse(resumable);
+        assertNull(productById.get("a"));
+        verify(catalogVersion).bump();
+        // the stream reopens at a cluster time read before the reload, so nothing written during it is missed
+        InOrder order = inOrder(database, catalogEngine, productSearchIndex);
+        order.verify(database).runCommand(any(Bson.class), eq(BsonDocument.class));
+        order.verify(catalogEngine).loadOnStartup();
+        order.verify(productSearchIndex).loadOnStartup();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> change(OperationType operation, BsonValue id, Document fullDocument,
+                                                         UpdateDescription update) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getOperationType()).thenReturn(operation);
+        when(change.getDocumentKey()).thenReturn(id != null ? new BsonDocument("_id", id) : null);
+        when(change.getFullDocument()).thenReturn(fullDocument);
+        when(change.getUpdateDescription()).thenReturn(update);
+        when(change.getResumeToken()).thenReturn(new BsonDocument("_data", new BsonString(new ObjectId().toHexString())));
+        return change;
+    }
+}
@@ -0,0 +1,106 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.cache.LocalCatalogVersion;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.search.ProductSearchIndex;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the listener against a real single-node replica set: writes made straight in the database
+ * must reach the cache and the read models, also across a restart of the listener.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ProductChangeStreamReplicaSetTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient client;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(MONGO.getReplicaSetUrl());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        client.close();
+    }
+
+    @Test
+    void shouldFollowExternalWritesAndResumeAfterRestart() throws Exception {
+        MongoTemplate mongoTemplate = new MongoTemplate(client, "productdb");
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        Cache productById = cacheManager.getCache("product_by_id");
+        LocalCatalogVersion catalogVersion = new LocalCatalogVersion();
+        List<ProductChangedEvent> events = new CopyOnWriteArrayList<>();
+        var products = mongoTemplate.getCollection("products");
+        products.insertOne(new Document("_id", "a").append("name", "Concha").append("price", 12.0));
+
+        ProductChangeStreamListener first = listener(mongoTemplate, cacheManager, catalogVersion, events);
+        first.start();
+        // the stream opens asynchronously: keep writing until the listener has seen one
+        productById.put("a", new Product());
+        awaitTrue(() -> {
+            products.updateOne(Filters.eq("_id", "a"), Updates.inc("quantity", 1));
+            return productById.get("a") == null;
+        });
+        assertEquals(0, catalogVersion.current()); // quantity is not a filter field
+        first.stop();
+        assertNotNull(new ResumeTokenStore(mongoTemplate).load("products:node-a"));
+
+        // written while no listener runs: picked up from the saved resume token
+        products.updateOne(Filters.eq("_id", "a"), Updates.set("price", 15.0));
+        productById.put("a", new Product());
+        events.clear();
+
+        ProductChangeStreamListener second = listener(mongoTemplate, cacheManager, catalogVersion, events);
+        second.start();
+        try {
+            awaitTrue(() -> productById.get("a") == null && !events.isEmpty());
+            assertEquals(15.0, events.get(0).product().getPrice());
+            assertTrue(catalogVersion.current() > 0);
+        } finally {
+            second.stop();
+        }
+    }
+
+    private static ProductChangeStreamListener listener(MongoTemplate mongoTemplate, ConcurrentMapCacheManager cacheManager,
+                                                        LocalCatalogVersion catalogVersion, List<ProductChangedEvent> events) {
+        return new ProductChangeStreamListener(mongoTemplate, new ResumeTokenStore(mongoTemplate), cacheManager, catalogVersion,
+                event -> events.add((ProductChangedEvent) event), mock(CatalogEngine.class), mock(ProductSearchIndex.class),
+                "products", "node-a", 100, Duration.ofMillis(200), Duration.ofMillis(200), Duration.ofMillis(200));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(100);
+        }
+    }
+}
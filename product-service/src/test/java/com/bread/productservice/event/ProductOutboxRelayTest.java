@@ -0,0 +1,116 @@
+package com.bread.productservice.event;
+
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
+import com.bread.productservice.model.ProductOutboxEvent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@EmbeddedKafka(partitions = 3, topics = "product-events")
+class ProductOutboxRelayTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    @Test
+    void shouldPublishBatchKeyedByProductAndDeleteAcknowledgedEvents(EmbeddedKafkaBroker broker) throws Exception {
+        List<ProductOutboxEvent> outbox = List.of(
+                event(ProductEventType.CREATED, "a"),
+                event(ProductEventType.STOCK_CHANGED, "b"),
+                event(ProductEventType.STOCK_CHANGED, "a"));
+        when(mongoTemplate.find(any(Query.class), eq(ProductOutboxEvent.class))).thenReturn(outbox);
+
+        Map<String, Object> producerProps = new HashMap<>(KafkaTestUtils.producerProps(broker));
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+
+        assertEquals(3, relay(kafkaTemplate).relayBatch());
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("relay-test", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(),
+                new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "product-events");
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), 3).forEach(records::add);
+
+            assertEquals(3, records.size());
+            List<ConsumerRecord<String, String>> productA = records.stream().filter(r -> "a".equals(r.key())).toList();
+            assertEquals(2, productA.size());
+            assertEquals(productA.get(0).partition(), productA.get(1).partition());
+            assertTrue(productA.get(0).offset() < productA.get(1).offset()); // outbox order kept per product
+            assertEquals(outbox.get(0).getId(), header(productA.get(0), "eventId"));
+            assertEquals("STOCK_CHANGED", header(productA.get(1), "eventType"));
+        }
+        verify(mongoTemplate).remove(any(Query.class), eq(ProductOutboxEvent.class));
+        kafkaTemplate.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepEventsTheBrokerDidNotAcknowledge() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(ProductOutboxEvent.class))).thenReturn(List.of(event(ProductEventType.DELETED, "a")));
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertEquals(0, relay(kafkaTemplate).relayBatch());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(ProductOutboxEvent.class));
+    }
+
+    @Test
+    void shouldLeaveRelayingToTheNodeHoldingTheLease() throws Exception {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ProductOutboxRelay.LEASE_COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+
+        assertEquals(0, relay(null).relayBatch());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(ProductOutboxEvent.class));
+    }
+
+    private ProductOutboxRelay relay(KafkaTemplate<String, String> kafkaTemplate) {
+        return new ProductOutboxRelay(mongoTemplate, kafkaTemplate, new ObjectMapper().findAndRegisterModules(), "product-events",
+                100, Duration.ofMillis(200), Duration.ofSeconds(10), Duration.ofSeconds(30));
+    }
+
+    private static ProductOutboxEvent event(ProductEventType type, String productId) {
+        Product product = type == ProductEventType.DELETED ? null
+                : new Product(productId, "Concha", "Pan dulce", 12.0, 10, "http://img.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        return new ProductOutboxEvent(new ObjectId().toHexString(), type, productId, 1L, product, Instant.now());
+    }
+
+    private static String header(ConsumerRecord<String, String> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
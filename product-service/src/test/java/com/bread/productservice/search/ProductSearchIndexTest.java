@@ -0,0 +1,101 @@
+package com.bread.productservice.search;
+
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(null);
+        index.load(List.of(
+                product("1", "Croissant de Mantequilla", "Pan hojaldrado"),
+                product("2", "Concha de Chocolate", "Pan dulce tradicional"),
+                product("3", "Pan de Canela", "Rollo con canela y azúcar")));
+    }
+
+    @Test
+    void shouldFindByNameContainingIgnoringCase() {
+        List<Product> result = index.search("CHOCO", 0, 10);
+        assertEquals(List.of("2"), ids(result));
+    }
+
+    @Test
+    void shouldMatchShortFragmentsAndPage() {
+        assertEquals(List.of("2", "1", "3"), ids(index.search("de", 0, 10)));
+        assertEquals(List.of("1"), ids(index.search("de", 1, 1)));
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileTheCatalogIsRead() {
+        ProductRepository repository = mock(ProductRepository.class);
+        ProductSearchIndex loading = new ProductSearchIndex(repository);
+        when(repository.findAll()).thenAnswer(inv -> {
+            loading.onProductChanged(new ProductChangedEvent("1", product("1", "Croissant de Almendra", "Pan hojaldrado")));
+            loading.onProductChanged(new ProductChangedEvent("2", null));
+            return List.of(product("1", "Croissant de Mantequilla", "Pan hojaldrado"), product("2", "Concha de Chocolate", "Pan dulce"));
+        });
+
+        loading.loadOnStartup();
+
+        assertEquals(List.of("1"), ids(loading.search("almendra", 0, 10)));
+        assertTrue(loading.search("mantequilla", 0, 10).isEmpty());
+        assertTrue(loading.search("concha", 0, 10).isEmpty());
+    }
+
+    @Test
+    void shouldNotMatchGramsOutOfOrder() {
+        assertTrue(index.search("latechoco", 0, 10).isEmpty());
+    }
+
+    @Test
+    void shouldAutocompletePreferringNameWords() {
+        assertEquals(List.of("3"), ids(index.autocomplete("can", 10)));
+        assertEquals(List.of("3", "2", "1"), ids(index.autocomplete("Pan", 10)));
+        assertEquals(List.of("3"), ids(index.autocomplete("pan", 1)));
+    }
+
+    @Test
+    void shouldFollowUpdatesAndDeletes() {
+        index.onProductChanged(new ProductChangedEvent("2", product("2", "Dona Glaseada", "Pan dulce")));
+        assertTrue(index.search("choco", 0, 10).isEmpty());
+        assertEquals(List.of("2"), ids(index.search("glase", 0, 10)));
+
+        index.onProductChanged(new ProductChangedEvent("2", null));
+        assertTrue(index.search("glase", 0, 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void shouldAnswerSingleCharactersInNameOrderOnLargeCatalogs() {
+        List<Product> catalog = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            catalog.add(product(String.valueOf(i), String.format("Pan %04d%s", i, i % 2 == 0 ? " x" : ""), null));
+        }
+        index.load(catalog);
+
+        assertEquals(List.of("4", "6"), ids(index.search("X", 1, 2)));
+        assertEquals(List.of("0", "1"), ids(index.search("p", 0, 2)));
+        assertTrue(index.search("q", 0, 10).isEmpty());
+    }
+
+    private static List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static Product product(String id, String name, String description) {
+        return new Product(id, name, description, 20.0, 5, "http://img.jpg", "GLUTEN", false, "CHOCOLATE", 0.0);
+    }
+}
@@ -0,0 +1,299 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.dto.BulkResultDTO;
+import com.bread.productservice.dto.ImportResultDTO;
+import com.bread.productservice.dto.ProductInputDTO;
+import com.bread.productservice.dto.ProductUpsertDTO;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.exception.InvalidRequestException;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.result.DeleteResult;
+
+import jakarta.validation.Validation;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductBulkServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache productByIdCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductBulkService productBulkService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Product.class))).thenReturn(bulkOperations);
+        when(cacheManager.getCache("product_by_id")).thenReturn(productByIdCache);
+        productBulkService = new ProductBulkService(mongoTemplate, Validation.buildDefaultValidatorFactory().getValidator(),
+                catalogVersion, cacheManager, eventPublisher, new ObjectMapper(), new ProductOutbox(null, null, false, 1), 2, 5);
+    }
+
+    @Test
+    void shouldInsertValidItemsAndReportInvalidOnes() {
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+        ProductInputDTO invalid = input("Dona");
+        invalid.setPrice(-1.0);
+
+        BulkResultDTO result = productBulkService.createProducts(List.of(input("Concha"), invalid, input("Bolillo"), input("Rol")));
+
+        assertEquals(4, result.getRequested());
+        assertEquals(3, result.getInserted());
+        assertEquals(3, result.getIds().size());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("price:"));
+        // 3 valid items in chunks of 2, but a single catalog version bump
+        verify(mongoTemplate, times(2)).bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        verify(bulkOperations, times(3)).insert(any(Product.class));
+        verify(catalogVersion, times(1)).bump();
+        verify(eventPublisher, times(3)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void shouldMapBulkWriteErrorsBackToRequestIndexes() {
+        BulkWriteResult partial = BulkWriteResult.acknowledged(0, 0, 0, 1, List.of(new BulkWriteUpsert(1, new BsonString("b"))), List.of());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("bulk failed",
+                new MongoBulkWriteException(partial, List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+        BulkResultDTO result = productBulkService.upsertProducts(List.of(upsert("a"), upsert("b")));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(List.of("b"), result.getIds());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(0, result.getErrors().get(0).getIndex());
+        assertEquals("a", result.getErrors().get(0).getId());
+        verify(productByIdCache).evict("b");
+        verify(productByIdCache, never()).evict("a");
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void shouldRejectDuplicatedIdsInUpsert() {
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        BulkResultDTO result = productBulkService.upsertProducts(List.of(upsert("a"), upsert("a")));
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+    }
+
+    @Test
+    void shouldRecordTheStoredVersionsOfUpsertedAndDeletedProducts() {
+        ProductOutbox outbox = mock(ProductOutbox.class);
+        ProductBulkService service = new ProductBulkService(mongoTemplate, Validation.buildDefaultValidatorFactory().getValidator(),
+                catalogVersion, cacheManager, eventPublisher, new ObjectMapper(), outbox, 2, 5);
+        when(outbox.write(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(new BulkWriteUpsert(1, new BsonString("b"))), List.of()));
+        Product a = product("a");
+        a.setVersion(4L);
+        Product b = product("b");
+        b.setVersion(1L);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(a, b));
+        when(mongoTemplate.remove(any(Query.class), eq(Product.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        service.upsertProducts(List.of(upsert("a"), upsert("b")));
+        service.deleteProducts(List.of("a", "b"));
+
+        verify(outbox).recordAll(ProductEventType.UPDATED, List.of(a));
+        verify(outbox).recordAll(ProductEventType.CREATED, List.of(b));
+        verify(outbox).recordDeleted(List.of(a, b));
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("a", a));
+    }
+
+    @Test
+    void shouldRedoAFailedChunkOneItemPerTransaction() {
+        ProductOutbox outbox = mock(ProductOutbox.class);
+        ProductBulkService service = new ProductBulkService(mongoTemplate, Validation.buildDefaultValidatorFactory().getValidator(),
+                catalogVersion, cacheManager, eventPublisher, new ObjectMapper(), outbox, 2, 5);
+        when(outbox.isEnabled()).thenReturn(true);
+        when(outbox.write(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0);
+        BulkOperationException failed = new BulkOperationException("bulk failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null, new ServerAddress(), Set.of()));
+        // the chunk, then the first item alone, then the second item alone
+        when(bulkOperations.execute()).thenThrow(failed).thenThrow(failed)
+                .thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+
+        BulkResultDTO result = service.createProducts(List.of(input("Concha"), input("Bolillo")));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(0, result.getErrors().get(0).getIndex());
+        verify(outbox, times(3)).write(any());
+        // only the transaction that committed recorded anything
+        verify(outbox).recordAll(eq(ProductEventType.CREATED), argThat(products -> products.size() == 1
+                && "Bolillo".equals(products.get(0).getName())));
+        verify(outbox, times(1)).recordAll(any(), any());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void shouldDeleteExistingIdsAndReportMissingOnes() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("a")));
+        when(mongoTemplate.remove(any(Query.class), eq(Product.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        BulkResultDTO result = productBulkService.deleteProducts(List.of("a", "missing"));
+
+        assertEquals(1, result.getDeleted());
+        assertEquals(List.of("a"), result.getIds());
+        assertEquals("Product not found", result.getErrors().get(0).getMessage());
+        verify(mongoTemplate, times(1)).remove(any(Query.class), eq(Product.class));
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("a", null));
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void shouldNotBumpVersionWhenNothingWasWritten() {
+        ProductInputDTO invalid = input("Dona");
+        invalid.setName("");
+
+        BulkResultDTO result = productBulkService.createProducts(List.of(invalid));
+
+        assertEquals(0, result.getInserted());
+        verifyNoInteractions(bulkOperations);
+        verify(catalogVersion, never()).bump();
+    }
+
+    @Test
+    void shouldRejectOversizedRequests() {
+        List<String> ids = List.of("1", "2", "3", "4", "5", "6");
+
+        assertThrows(InvalidRequestException.class, () -> productBulkService.deleteProducts(ids));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldImportNdjsonInChunksWithOneVersionBump() throws Exception {
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        String ndjson = String.join("\n",
+                json(product("a")),
+                "{ not json",
+                json(product("b")),
+                "",
+                json(product("a")), // same id again: written after the first one, in a later chunk
+                json(new Product(null, "", "Pan dulce", 12.0, 10, "http://img.jpg", "GLUTEN", false, "VAINILLA", 0.0)));
+
+        ImportResultDTO result = productBulkService.importProducts(new StringReader(ndjson));
+
+        assertEquals(5, result.getRead());
+        assertEquals(2, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getIndex());
+        assertTrue(result.getErrors().get(1).getMessage().startsWith("name:"));
+        // [a, b] then [a]
+        verify(mongoTemplate, times(2)).bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        verify(bulkOperations, times(3)).upsert(any(Query.class), any(Update.class));
+        verify(catalogVersion, times(1)).bump();
+    }
+
+    @Test
+    void shouldExportOneProductPerLine() throws Exception {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenReturn(Stream.of(product("a"), product("b"), product("c")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = productBulkService.exportProducts(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, exported);
+        assertEquals(3, lines.length);
+        assertEquals("b", new ObjectMapper().readValue(lines[1], Product.class).getId());
+    }
+
+    @Test
+    void shouldImportWhatItExportedIncludingSoldOutProducts() throws Exception {
+        Product soldOut = product("b");
+        soldOut.setQuantity(0);
+        soldOut.setVersion(7L);
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenReturn(Stream.of(product("a"), soldOut));
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        productBulkService.exportProducts(out);
+
+        ImportResultDTO result = productBulkService.importProducts(new StringReader(out.toString(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.getRead());
+        assertEquals(0, result.getFailed());
+        assertEquals(2, result.getUpdated());
+        verify(bulkOperations).upsert(argThat((Query query) -> "b".equals(query.getQueryObject().get("id"))),
+                argThat((Update update) -> Integer.valueOf(0).equals(update.getUpdateObject().get("$set", Document.class).get("quantity"))));
+    }
+
+    private static String json(Product product) throws Exception {
+        return new ObjectMapper().writeValueAsString(product);
+    }
+
+    private static ProductInputDTO input(String name) {
+        ProductInputDTO input = new ProductInputDTO();
+        input.setName(name);
+        input.setDescription("Pan dulce");
+        input.setImgUrl("http://img.jpg");
+        input.setPrice(12.0);
+        input.setQuantity(10);
+        input.setType("GLUTEN");
+        input.setFlavor("VAINILLA");
+        input.setDiscountPercentage(0.0);
+        return input;
+    }
+
+    private static ProductUpsertDTO upsert(String id) {
+        return new ProductUpsertDTO(id, input("Concha " + id));
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "Concha", "Pan dulce", 12.0, 10, "http://img.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+    }
+}
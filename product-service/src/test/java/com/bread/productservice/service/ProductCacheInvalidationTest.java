@@ -0,0 +1,190 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.cache.CatalogKeyGenerator;
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.cache.LocalCacheInvalidationBus;
+import com.bread.productservice.cache.LocalCatalogVersion;
+import com.bread.productservice.cache.TwoTierCache;
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.repository.ProductRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Replays the same mixed read/write workload through the caching proxy twice: once with the
+ * old allEntries=true behaviour (simulated by clearing the caches after every write) and once
+ * with the key-level eviction plus catalog version now declared on {@link ProductService}.
+ */
+class ProductCacheInvalidationTest {
+
+    private static final int PRODUCTS = 200;
+    private static final int OPERATIONS = 5_000;
+    private static final double WRITE_RATIO = 0.05;
+    private static final double LIST_READ_RATIO = 0.05;
+
+    private AnnotationConfigApplicationContext context;
+    private ProductService productService;
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(CachingConfig.class);
+        productService = context.getBean(ProductService.class);
+        cacheManager = context.getBean(TwoTierCacheManager.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void shouldKeepHitRatioUnderWritesWithTargetedInvalidation() {
+        double legacy = runWorkload(true);
+        context.close();
+        setUp();
+        double targeted = runWorkload(false);
+
+        assertTrue(targeted > 0.9, "targeted hit ratio was " + targeted);
+        assertTrue(targeted > legacy + 0.3, "legacy=" + legacy + " targeted=" + targeted);
+    }
+
+    @Test
+    void shouldBypassStaleListAfterWrite() {
+        ProductRepository repository = context.getBean(ProductRepository.class);
+
+        productService.getAllProducts();
+        productService.getAllProducts();
+        verify(repository, times(1)).findAll();
+
+        productService.updateProduct("1", product("1"));
+        productService.getAllProducts();
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void shouldReloadListsWhenOnlyTheRevisionMoves() {
+        ProductRepository repository = context.getBean(ProductRepository.class);
+        CatalogVersion catalogVersion = context.getBean(CatalogVersion.class);
+
+        productService.getAllProducts();
+        catalogVersion.touch(); // a stock change: same catalog version, new ETag
+        productService.getAllProducts();
+
+        assertEquals(0, catalogVersion.current());
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void shouldReadMongoOnceForParallelMisses() throws Exception {
+        ProductRepository repository = context.getBean(ProductRepository.class);
+        when(repository.findById("hot")).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return Optional.of(product("hot"));
+        });
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return productService.getProductById("hot");
+            }));
+        }
+        start.countDown();
+        for (Future<Optional<Product>> result : results) {
+            assertEquals("hot", result.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        executor.shutdown();
+
+        verify(repository, times(1)).findById("hot");
+    }
+
+    private double runWorkload(boolean clearEverythingOnWrite) {
+        Random random = new Random(42);
+        for (int i = 0; i < OPERATIONS; i++) {
+            double roll = random.nextDouble();
+            String id = Integer.toString(random.nextInt(PRODUCTS));
+            if (roll < WRITE_RATIO) {
+                productService.updateProduct(id, product(id));
+                if (clearEverythingOnWrite) {
+                    cacheManager.getCache("product_by_id").clear();
+                    cacheManager.getCache("products_list").clear();
+                }
+            } else if (roll < WRITE_RATIO + LIST_READ_RATIO) {
+                productService.getAllProducts();
+            } else {
+                productService.getProductById(id);
+            }
+        }
+        TwoTierCache byId = (TwoTierCache) cacheManager.getCache("product_by_id");
+        long hits = byId.getStats().getL1Hits() + byId.getStats().getL2Hits();
+        return (double) hits / (hits + byId.getStats().getL2Misses());
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "Concha " + id, "Pan dulce", 12.0, 10, "http://img.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        ProductRepository productRepository() {
+            ProductRepository repository = mock(ProductRepository.class);
+            when(repository.findById(anyString())).thenAnswer(inv -> Optional.of(product(inv.getArgument(0))));
+            when(repository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(repository.findAll()).thenReturn(List.of(product("1")));
+            return repository;
+        }
+
+        @Bean
+        CatalogVersion catalogVersion() {
+            return new LocalCatalogVersion();
+        }
+
+        @Bean
+        CatalogKeyGenerator catalogKeyGenerator(CatalogVersion catalogVersion) {
+            return new CatalogKeyGenerator(catalogVersion);
+        }
+
+        @Bean
+        CatalogKeyGenerator revisionKeyGenerator(CatalogVersion catalogVersion) {
+            return CatalogKeyGenerator.byRevision(catalogVersion);
+        }
+
+        @Bean
+        TwoTierCacheManager cacheManager() {
+            return new TwoTierCacheManager(new ConcurrentMapCacheManager(), new LocalCacheInvalidationBus(), 10_000, Duration.ofMinutes(1));
+        }
+
+        @Bean
+        ProductService productService(ProductRepository productRepository, CatalogVersion catalogVersion,
+                                      ApplicationEventPublisher eventPublisher, TwoTierCacheManager cacheManager) {
+            return new ProductService(productRepository, null, catalogVersion, null, null, null, eventPublisher, cacheManager,
+                    new ProductOutbox(null, null, false, 1));
+        }
+    }
+}
@@ -1,16 +1,40 @@
 package com.bread.productservice.service;
 
+import com.bread.productservice.cache.CatalogVersion;
+import com.bread.productservice.cache.LocalCacheInvalidationBus;
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.catalog.CatalogEngine;
 import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductConnectionDTO;
+import com.bread.productservice.dto.ProductFacetsDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.exception.InvalidRequestException;
 import com.bread.productservice.model.Flavor;
 import com.bread.productservice.model.Product;
+import com.bread.productservice.model.ProductEventType;
 import com.bread.productservice.model.ProductType;
 import com.bread.productservice.repository.ProductRepository;
+import com.bread.productservice.search.ProductSearchIndex;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.bson.Document;
 import org.mockito.*;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.time.Duration;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +45,30 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProductCountService productCountService;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private CatalogEngine catalogEngine;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Spy
+    private ProductOutbox productOutbox = new ProductOutbox(null, null, false, 1);
+
     @InjectMocks
     private ProductService productService;
 
@@ -38,24 +86,94 @@ class ProductServiceTest {
         Page<Product> page = new PageImpl<>(products);
         when(productRepository.findAll(any(Pageable.class))).thenReturn(page);
 
-        PagedResponseDTO<Product> result = productService.getAllProductsPagedSorted(0, 5, "DESC");
+        PagedResponseDTO<Product> result = productService.getAllProductsPagedSorted(0, 5, "DESC", ProductProjection.ALL);
 
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals(products, result.getContent());
     }
 
+    @Test
+    void shouldGetProductsConnectionWithNextPage() {
+        Product second = new Product("2", "Concha", "Pan dulce", 30.0, 5, "http://imgUrl.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(new ArrayList<>(List.of(sampleProduct, second)));
+
+        ProductConnectionDTO result = productService.getProductsConnection(null, 1, null, "ASC");
+
+        assertEquals(1, result.getEdges().size());
+        assertTrue(result.getPageInfo().isHasNextPage());
+        assertFalse(result.getPageInfo().isHasPreviousPage());
+        assertEquals(new ProductCursor(25.0, "1"), ProductCursor.decode(result.getPageInfo().getEndCursor()));
+    }
+
+    @Test
+    void shouldSeekPastCursorInsteadOfSkipping() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(new ArrayList<>());
+        String after = new ProductCursor(25.0, "1").encode();
+
+        productService.getProductsConnection(null, 10, after, "ASC");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Product.class));
+        assertEquals(0, query.getValue().getSkip());
+        assertEquals(11, query.getValue().getLimit());
+        assertTrue(query.getValue().getQueryObject().containsKey("$or"));
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(InvalidRequestException.class, () -> productService.getProductsConnection(null, 10, "not-a-cursor", "ASC"));
+    }
+
+    @Test
+    void shouldSkipCountWhenTotalsNotRequested() {
+        Product second = new Product("2", "Concha", "Pan dulce", 30.0, 5, "http://imgUrl.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(new ArrayList<>(List.of(sampleProduct, second)));
+
+        PagedResponseDTO<Product> result = productService.getFilteredProducts(new ProductFilterInput(), 0, 1, "ASC", false, ProductProjection.ALL);
+
+        assertEquals(1, result.getContent().size());
+        assertNull(result.getTotalElements());
+        assertFalse(result.isLast());
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Product.class));
+        verifyNoInteractions(productCountService);
+    }
+
+    @Test
+    void shouldUseCachedCountWhenConfigured() {
+        when(productCountService.getDefaultMode()).thenReturn(CountMode.CACHED);
+        when(productCountService.countCached(any())).thenReturn(42L);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(new ArrayList<>(List.of(sampleProduct)));
+
+        PagedResponseDTO<Product> result = productService.getFilteredProducts(new ProductFilterInput(), 0, 10, "ASC", true, ProductProjection.ALL);
+
+        assertEquals(42L, result.getTotalElements());
+        assertEquals(5, result.getTotalPages());
+        verify(productCountService, never()).countExact(any());
+    }
+
     @Test
     void shouldSearchProductsByName() {
         List<Product> products = List.of(sampleProduct);
         when(productRepository.findByNameContainingIgnoreCase(eq("Croissant"), any(Pageable.class)))
                 .thenReturn(products);
 
-        List<Product> result = productService.searchProductsByName("Croissant", 0, 5);
+        List<Product> result = productService.searchProductsByName("Croissant", 0, 5, ProductProjection.ALL);
         assertEquals(1, result.size());
         assertEquals("Croissant", result.get(0).getName());
     }
 
+    @Test
+    void shouldSearchProductsByNameFromIndexWhenLoaded() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("crois", 0, 5)).thenReturn(List.of(sampleProduct));
+
+        List<Product> result = productService.searchProductsByName("crois", 0, 5, ProductProjection.ALL);
+
+        assertEquals(1, result.size());
+        verify(productRepository, never()).findByNameContainingIgnoreCase(any(), any());
+    }
+
     @Test
     void shouldFilterProductsByType() {
         List<Product> products = List.of(sampleProduct);
@@ -89,6 +207,7 @@ class ProductServiceTest {
         when(productRepository.save(any(Product.class))).thenReturn(sampleProduct);
         Product created = productService.createProduct(sampleProduct);
         assertEquals("Croissant", created.getName());
+        verify(productOutbox).record(ProductEventType.CREATED, "1", sampleProduct);
     }
 
     @Test
@@ -103,10 +222,64 @@ class ProductServiceTest {
         update.setQuantity(15);
         update.setImgUrl("http://nueva.img");
         update.setType("VEGAN");
+        update.setFlavor("CHOCOLATE");
+        update.setOnSale(true);
+        update.setDiscountPercentage(10.0);
 
         Product result = productService.updateProduct("1", update);
 
         assertEquals("Nuevo Croissant", result.getName());
+        assertEquals("CHOCOLATE", result.getFlavor());
+        assertTrue(result.isOnSale());
+        assertEquals(10.0, result.getDiscountPercentage());
+        verify(catalogVersion, times(1)).bump();
+    }
+
+    @Test
+    void shouldPatchOnlySentFieldsWithoutReadingFirst() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(sampleProduct);
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", "Croissant de almendra");
+        fields.put("discountPercentage", null);
+
+        productService.patchProduct("1", fields);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        Document updateObject = update.getValue().getUpdateObject();
+        assertEquals(new Document("name", "Croissant de almendra"), updateObject.get("$set"));
+        assertEquals(new Document("discountPercentage", 1), updateObject.get("$unset"));
+        assertEquals(new Document("version", 1), updateObject.get("$inc"));
+        verifyNoInteractions(productRepository);
+        // name is not a filter field: cached pages keep their key
+        verify(catalogVersion, never()).bump();
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("1", sampleProduct));
+    }
+
+    @Test
+    void shouldBumpCatalogVersionWhenPatchingFilterFields() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(sampleProduct);
+
+        productService.patchProduct("1", Map.of("price", 30));
+
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void shouldRejectInvalidPatchAndReportStaleVersion() {
+        assertThrows(InvalidRequestException.class, () -> productService.patchProduct("1", Map.of("price", -1)));
+        assertThrows(InvalidRequestException.class, () -> productService.patchProduct("1", Collections.singletonMap("name", null)));
+        assertThrows(InvalidRequestException.class, () -> productService.patchProduct("1", Map.of("color", "rojo")));
+        assertThrows(InvalidRequestException.class, () -> productService.patchProduct("1", Map.of("discountPercentage", 120)));
+        assertThrows(InvalidRequestException.class, () -> productService.patchProduct("1", Map.of("quantity", 5, "version", "3")));
+        assertThrows(InvalidRequestException.class, () -> productService.patchProduct("1", Map.of("quantity", 5, "version", 2.5)));
+        verifyNoInteractions(mongoTemplate);
+
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(true);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> productService.patchProduct("1", Map.of("quantity", 5, "version", 3)));
     }
 
     @Test
@@ -125,6 +298,8 @@ class ProductServiceTest {
     void shouldDeleteProduct() {
         assertDoesNotThrow(() -> productService.deleteProduct("1"));
         verify(productRepository, times(1)).deleteById("1");
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("1", null));
+        verify(productOutbox).record(ProductEventType.DELETED, "1", null);
     }
 
     @Test
@@ -141,4 +316,67 @@ class ProductServiceTest {
         List<Product> result = productService.getAllProducts();
         assertEquals(1, result.size());
     }
+
+    @Test
+    void shouldBuildFacetsFromSingleAggregation() {
+        Document raw = new Document("total", List.of(new Document("count", 5)))
+                .append("types", List.of(new Document("_id", "GLUTEN").append("count", 3), new Document("_id", "VEGAN").append("count", 2)))
+                .append("flavors", List.of(new Document("_id", "CHOCOLATE").append("count", 5)))
+                .append("onSale", List.of(new Document("_id", true).append("count", 1), new Document("_id", false).append("count", 4)))
+                .append("priceBuckets", List.of(new Document("_id", 10.0).append("count", 4), new Document("_id", 100.0).append("count", 1)));
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoTemplate.aggregate(aggregation.capture(), eq(Product.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(raw), new Document()));
+
+        ProductFilterInput filter = new ProductFilterInput();
+        filter.setFlavors(List.of(Flavor.CHOCOLATE));
+        ProductFacetsDTO facets = productService.getFacets(filter);
+
+        assertEquals(5, facets.getTotal());
+        assertEquals("GLUTEN", facets.getTypes().get(0).getValue());
+        assertEquals(3, facets.getTypes().get(0).getCount());
+        assertEquals(1, facets.getOnSale());
+        assertEquals(4, facets.getNotOnSale());
+        assertEquals(5, facets.getPriceBuckets().size());
+        assertEquals(0, facets.getPriceBuckets().get(0).getCount());
+        assertEquals(4, facets.getPriceBuckets().get(1).getCount());
+        assertNull(facets.getPriceBuckets().get(4).getTo());
+        assertEquals(1, facets.getPriceBuckets().get(4).getCount());
+
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(2, pipeline.size());
+        assertTrue(pipeline.get(0).containsKey("$match"));
+        assertTrue(pipeline.get(1).get("$facet", Document.class).keySet().containsAll(List.of("total", "types", "flavors", "onSale", "priceBuckets")));
+    }
+
+    @Test
+    void shouldBatchLoadProductsFromCacheThenOneMongoQuery() {
+        TwoTierCacheManager twoTier = new TwoTierCacheManager(new ConcurrentMapCacheManager(), new LocalCacheInvalidationBus(), 100, Duration.ofMinutes(1));
+        when(cacheManager.getCache("product_by_id")).thenReturn(twoTier.getCache("product_by_id"));
+        twoTier.getCache("product_by_id").put("1", sampleProduct);
+        Product concha = new Product("2", "Concha", "Pan dulce", 12.0, 5, "http://imgUrl.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        when(productRepository.findAllById(any())).thenReturn(List.of(concha));
+
+        Map<String, Product> result = productService.getProductsByIds(List.of("1", "2", "3", "2"));
+
+        assertEquals(Set.of("1", "2"), result.keySet());
+        verify(productRepository, times(1)).findAllById(argThat(ids -> Set.copyOf((Collection<String>) ids).equals(Set.of("2", "3"))));
+        // the Mongo hit is now cached, so the next batch never reaches the repository
+        productService.getProductsByIds(List.of("1", "2"));
+        verifyNoMoreInteractions(productRepository);
+    }
+
+    @Test
+    void shouldPushSelectedFieldsDownAsProjection() {
+        when(productCountService.getDefaultMode()).thenReturn(CountMode.EXACT);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(sampleProduct));
+        ProductProjection projection = ProductProjection.of(List.of("name", "__typename"));
+
+        productService.getFilteredProducts(new ProductFilterInput(), 0, 10, "ASC", true, projection);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Product.class));
+        assertEquals(Set.of("id", "name", "price"), query.getValue().getFieldsObject().keySet());
+        assertEquals("id,name,price", projection.toString());
+    }
 }
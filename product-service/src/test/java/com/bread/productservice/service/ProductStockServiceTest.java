@@ -0,0 +1,117 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.cache.LocalCatalogVersion;
+import com.bread.productservice.dto.StockItemDTO;
+import com.bread.productservice.dto.StockReservationDTO;
+import com.bread.productservice.event.ProductChangedEvent;
+import com.bread.productservice.event.ProductOutbox;
+import com.bread.productservice.exception.InsufficientStockException;
+import com.bread.productservice.exception.InvalidRequestException;
+import com.bread.productservice.model.Product;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductStockServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache productByIdCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final LocalCatalogVersion catalogVersion = new LocalCatalogVersion();
+
+    private ProductStockService productStockService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cacheManager.getCache("product_by_id")).thenReturn(productByIdCache);
+        productStockService = new ProductStockService(mongoTemplate, cacheManager, catalogVersion, eventPublisher, new ProductOutbox(null, null, false, 1));
+    }
+
+    @Test
+    void shouldReserveWithSingleGuardedIncrement() {
+        Product after = product("1", 7);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(after);
+
+        Product result = productStockService.reserveStock("1", 3);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        assertEquals(new Document("$gte", 3), query.getValue().getQueryObject().get("quantity"));
+        assertEquals(new Document("quantity", -3).append("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        assertSame(after, result);
+        verify(productByIdCache).put("1", after);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent("1", after));
+        verify(mongoTemplate, never()).save(any());
+        // stock is not a catalog field: cached pages stay, their validators move
+        assertEquals(0, catalogVersion.current());
+        assertEquals(1, catalogVersion.revision());
+    }
+
+    @Test
+    void shouldTellInsufficientStockFromMissingProduct() {
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(true, false);
+
+        assertThrows(InsufficientStockException.class, () -> productStockService.reserveStock("1", 50));
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> productStockService.reserveStock("2", 1));
+        assertTrue(missing.getMessage().startsWith("Product not found"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldReleaseWhatWasReservedWhenACartLineFails() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Product.class)))
+                .thenReturn(product("1", 8), (Product) null, product("1", 10));
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(true);
+
+        StockReservationDTO result = productStockService.reserveStockBatch(List.of(
+                new StockItemDTO("1", 1), new StockItemDTO("2", 5), new StockItemDTO("1", 1)));
+
+        assertFalse(result.isReserved());
+        assertEquals("2", result.getFailedProductId());
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), updates.capture(), any(FindAndModifyOptions.class), eq(Product.class));
+        // both lines of product 1 merged into one reservation of 2, then given back
+        assertEquals(-2, ((Document) updates.getAllValues().get(0).getUpdateObject().get("$inc")).get("quantity"));
+        assertEquals(2, ((Document) updates.getAllValues().get(2).getUpdateObject().get("$inc")).get("quantity"));
+    }
+
+    @Test
+    void shouldRejectNonPositiveQuantities() {
+        assertThrows(InvalidRequestException.class, () -> productStockService.reserveStock("1", 0));
+        assertThrows(InvalidRequestException.class, () -> productStockService.releaseStock("1", -2));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static Product product(String id, int quantity) {
+        return new Product(id, "Concha", "Pan dulce", 12.0, quantity, "http://img.jpg", "GLUTEN", false, "VAINILLA", 0.0, 4L);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bread.productservice.service;
+
+import com.bread.productservice.cache.LocalCacheInvalidationBus;
+import com.bread.productservice.cache.TwoTierCacheManager;
+import com.bread.productservice.catalog.CatalogEngine;
+import com.bread.productservice.dto.PagedResponseDTO;
+import com.bread.productservice.dto.ProductFilterInput;
+import com.bread.productservice.model.Product;
+import com.bread.productservice.search.ProductSearchIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveProductServiceTest {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private TwoTierCacheManager cacheManager;
+    private ReactiveProductService reactiveProductService;
+    private Product sampleProduct;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        ProductCountService countService = mock(ProductCountService.class);
+        when(countService.getDefaultMode()).thenReturn(CountMode.EXACT);
+        cacheManager = new TwoTierCacheManager(new ConcurrentMapCacheManager(), new LocalCacheInvalidationBus(), 100, Duration.ofMinutes(1));
+        reactiveProductService = new ReactiveProductService(reactiveMongoTemplate, countService, mock(ProductSearchIndex.class),
+                new CatalogEngine(null, false), cacheManager);
+        sampleProduct = new Product("1", "Croissant", "Pan hojaldrado", 25.0, 10, "http://imgUrl.jpg", "GLUTEN", false, "MANTEQUILLA", 0.0);
+    }
+
+    @Test
+    void shouldDetectNextPageWithoutCounting() {
+        Product second = new Product("2", "Concha", "Pan dulce", 30.0, 5, "http://imgUrl.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(Flux.just(sampleProduct, second));
+
+        PagedResponseDTO<Product> result = reactiveProductService
+                .getFilteredProducts(new ProductFilterInput(), 0, 1, "ASC", false, ProductProjection.ALL)
+                .block();
+
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isLast());
+        assertNull(result.getTotalElements());
+        verify(reactiveMongoTemplate, never()).count(any(Query.class), eq(Product.class));
+    }
+
+    @Test
+    void shouldServeCachedIdsAndQueryOnlyTheRest() {
+        cacheManager.getCache("product_by_id").put("1", sampleProduct);
+        Product second = new Product("2", "Concha", "Pan dulce", 30.0, 5, "http://imgUrl.jpg", "GLUTEN", false, "VAINILLA", 0.0);
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(Flux.just(second));
+
+        Map<String, Product> result = reactiveProductService.getProductsByIds(List.of("1", "2", "3")).block();
+
+        assertEquals(Set.of("1", "2"), result.keySet());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).find(query.capture(), eq(Product.class));
+        assertEquals(List.of("2", "3"), query.getValue().getQueryObject().get("id", org.bson.Document.class).get("$in"));
+        assertNotNull(cacheManager.getCache("product_by_id").get("2"));
+    }
+}